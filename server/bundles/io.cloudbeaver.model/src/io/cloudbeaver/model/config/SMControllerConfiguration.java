@@ -22,10 +22,12 @@ public class SMControllerConfiguration {
     public static final int DEFAULT_ACCESS_TOKEN_TTL = 20;
     public static final int DEFAULT_REFRESH_TOKEN_TTL = 4320; //72h
     public static final int DEFAULT_EXPIRED_AUTH_ATTEMPT_INFO_TTL = 60; //72h
+    public static final int DEFAULT_EXPIRED_AUTH_ATTEMPT_TTL = 43200; //30d
 
     private int accessTokenTtl = DEFAULT_ACCESS_TOKEN_TTL;
     private int refreshTokenTtl = DEFAULT_REFRESH_TOKEN_TTL;
     private int expiredAuthAttemptInfoTtl = DEFAULT_EXPIRED_AUTH_ATTEMPT_INFO_TTL;
+    private int expiredAuthAttemptTtl = DEFAULT_EXPIRED_AUTH_ATTEMPT_TTL;
 
     private boolean enableBruteForceProtection = true;
 
@@ -62,6 +64,14 @@ public class SMControllerConfiguration {
         this.expiredAuthAttemptInfoTtl = expiredAuthAttemptInfoTtl;
     }
 
+    public int getExpiredAuthAttemptTtl() {
+        return expiredAuthAttemptTtl;
+    }
+
+    public void setExpiredAuthAttemptTtl(int expiredAuthAttemptTtl) {
+        this.expiredAuthAttemptTtl = expiredAuthAttemptTtl;
+    }
+
     public void setCheckBruteforce(boolean checkBruteforce) {
         this.enableBruteForceProtection = checkBruteforce;
     }
@@ -0,0 +1,59 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2025 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.model.rm;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.DBException;
+
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.OpenOption;
+import java.util.Set;
+
+/**
+ * Resource controller which provides streaming access to resource contents
+ * without loading the whole resource in memory.
+ */
+public interface RMStreamingController {
+
+    /**
+     * Opens channel to resource contents.
+     * Options have the same meaning as in {@link java.nio.file.Files#newByteChannel(java.nio.file.Path, Set, java.nio.file.attribute.FileAttribute[])}.
+     * Written data becomes visible after the channel is closed.
+     */
+    @NotNull
+    SeekableByteChannel openResourceChannel(
+        @NotNull String projectId,
+        @NotNull String resourcePath,
+        @NotNull Set<? extends OpenOption> options
+    ) throws DBException;
+
+    /**
+     * Transfers range of resource contents to the target channel.
+     *
+     * @param length maximum number of bytes to transfer, negative value means till the end of resource
+     * @return number of transferred bytes
+     */
+    long transferResourceContents(
+        @NotNull String projectId,
+        @NotNull String resourcePath,
+        long offset,
+        long length,
+        @NotNull WritableByteChannel target
+    ) throws DBException;
+
+}
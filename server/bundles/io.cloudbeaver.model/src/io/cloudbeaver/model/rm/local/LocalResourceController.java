@@ -19,6 +19,7 @@ package io.cloudbeaver.model.rm.local;
 import io.cloudbeaver.BaseWebProjectImpl;
 import io.cloudbeaver.DBWConstants;
 import io.cloudbeaver.model.app.ServletApplication;
+import io.cloudbeaver.model.rm.RMStreamingController;
 import io.cloudbeaver.model.rm.lock.RMFileLockController;
 import io.cloudbeaver.service.security.SMUtils;
 import io.cloudbeaver.service.sql.WebSQLConstants;
@@ -48,7 +49,11 @@ import org.jkiss.utils.IOUtils;
 import org.jkiss.utils.Pair;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.text.MessageFormat;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
@@ -60,7 +65,7 @@ import java.util.stream.Stream;
 /**
  * Resource manager API
  */
-public class LocalResourceController extends BaseLocalResourceController {
+public class LocalResourceController extends BaseLocalResourceController implements RMStreamingController {
 
     private static final Log log = Log.getLog(LocalResourceController.class);
 
@@ -133,9 +138,38 @@ public class LocalResourceController extends BaseLocalResourceController {
     @NotNull
     @Override
     public RMProject[] listAccessibleProjects() throws DBException {
-        List<RMProject> projects;
         //TODO refactor after implement current user api in sm
         var activeUserCreds = credentialsProvider.getActiveUserCredentials();
+        if (activeUserCreds == null || activeUserCreds.getUserId() == null) {
+            return readAccessibleProjects(activeUserCreds);
+        }
+        String userId = activeUserCreds.getUserId();
+        String accessKey = getProjectsAccessKey(activeUserCreds);
+        RMAccessibleProjectsCache projectsCache = RMAccessibleProjectsCache.getInstance();
+        RMProject[] projects = projectsCache.getProjects(userId, accessKey);
+        if (projects == null) {
+            long generation = projectsCache.getGeneration();
+            projects = readAccessibleProjects(activeUserCreds);
+            projectsCache.putProjects(userId, accessKey, projects, generation);
+        }
+        return projects;
+    }
+
+    /**
+     * Describes user permissions which affect accessible projects list
+     */
+    @NotNull
+    private String getProjectsAccessKey(@NotNull SMCredentials activeUserCreds) {
+        var webApp = ServletAppUtils.getServletApplication();
+        return String.valueOf(credentialsProvider.hasPermission(DBWConstants.PERMISSION_ADMIN)) + ':' +
+            credentialsProvider.hasPermission(RMConstants.PERMISSION_RM_ADMIN) + ':' +
+            userHasAccessToPrivateProject(webApp, activeUserCreds) + ':' +
+            webApp.getAppConfiguration().isSupportsCustomConnections();
+    }
+
+    @NotNull
+    private RMProject[] readAccessibleProjects(@Nullable SMCredentials activeUserCreds) throws DBException {
+        List<RMProject> projects;
         if (Files.exists(sharedProjectsPath) && activeUserCreds != null && activeUserCreds.getUserId() != null) {
             projects = readAccessibleSharedProjects(activeUserCreds.getUserId());
         } else {
@@ -288,6 +322,7 @@ public class LocalResourceController extends BaseLocalResourceController {
             if (ServletAppUtils.getServletApplication().isMultiNode()) {
                 createResourceTypeFolders(projectPath);
             }
+            RMAccessibleProjectsCache.getInstance().invalidateAll();
             fireRmProjectAddEvent(project);
             return project;
         } catch (IOException e) {
@@ -311,9 +346,12 @@ public class LocalResourceController extends BaseLocalResourceController {
                 synchronized (projectRegistries) {
                     projectRegistries.remove(projectId);
                 }
+                RMAccessibleProjectsCache.getInstance().invalidateProject(projectId);
             } catch (IOException e) {
                 throw new DBException("Error deleting project '" + project.getName() + "'", e);
             }
+        } finally {
+            lockController.removeProjectLock(projectId);
         }
     }
 
@@ -359,7 +397,9 @@ public class LocalResourceController extends BaseLocalResourceController {
                     throw new DBException("Invalid folder path");
                 }
                 createFolder(folderPath);
-                return readChildResources(projectId, folderPath, nameMask, readProperties, readHistory, recursive);
+                // Project properties are loaded once for the whole listing
+                BaseProjectImpl project = readProperties ? getWebProject(projectId, true) : null;
+                return readChildResources(projectId, project, folderPath, nameMask, readHistory, recursive);
             } catch (NoSuchFileException e) {
                 throw new DBException("Invalid resource folder " + folder);
             } catch (IOException e) {
@@ -368,25 +408,37 @@ public class LocalResourceController extends BaseLocalResourceController {
         });
     }
 
+    /**
+     * @param project project to read resource properties from, or null if properties are not needed
+     */
     @NotNull
     private RMResource[] readChildResources(
         @NotNull String projectId,
+        @Nullable BaseProjectImpl project,
         @NotNull Path folderPath,
         @Nullable String nameMask,
-        boolean readProperties,
         boolean readHistory,
         boolean recursive
     ) throws IOException {
-        try (Stream<Path> files = Files.list(folderPath)) {
-            return files.filter(path -> {
-                    String fileName = path.getFileName().toString();
-                    return (nameMask == null || nameMask.equals(fileName)) && !fileName.startsWith(".");
-                }) // skip hidden files
-                .sorted(Comparator.comparing(path -> path.getFileName().toString(), String.CASE_INSENSITIVE_ORDER))
-                .map((Path path) -> makeResourceFromPath(projectId, path, nameMask, readProperties, readHistory, recursive))
-                .filter(Objects::nonNull)
-                .toArray(RMResource[]::new);
+        List<Path> children = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(folderPath)) {
+            for (Path path : files) {
+                String fileName = path.getFileName().toString();
+                // skip hidden files
+                if ((nameMask == null || nameMask.equals(fileName)) && !fileName.startsWith(".")) {
+                    children.add(path);
+                }
+            }
+        }
+        children.sort(Comparator.comparing(path -> path.getFileName().toString(), String.CASE_INSENSITIVE_ORDER));
+        List<RMResource> resources = new ArrayList<>(children.size());
+        for (Path path : children) {
+            RMResource resource = makeResourceFromPath(projectId, project, path, nameMask, readHistory, recursive);
+            if (resource != null) {
+                resources.add(resource);
+            }
         }
+        return resources.toArray(new RMResource[0]);
     }
 
     @Override
@@ -559,7 +611,7 @@ public class LocalResourceController extends BaseLocalResourceController {
     @Nullable
     @Override
     public RMResource getResource(@NotNull String projectId, @NotNull String resourcePath) throws DBException {
-        return makeResourceFromPath(projectId, getTargetPath(projectId, resourcePath), null, false, false, false);
+        return makeResourceFromPath(projectId, null, getTargetPath(projectId, resourcePath), null, false, false);
     }
 
     @NotNull
@@ -589,17 +641,7 @@ public class LocalResourceController extends BaseLocalResourceController {
     ) throws DBException {
         try (var ignoredLock = lockController.lockProject(projectId, "setResourceContents")) {
             validateResourcePath(resourcePath);
-            Number fileSizeLimit = ServletAppUtils.getServletApplication()
-                .getAppConfiguration()
-                .getResourceQuota(WebSQLConstants.QUOTA_PROP_RM_FILE_SIZE_LIMIT);
-            if (fileSizeLimit != null && data.length > fileSizeLimit.longValue()) {
-                throw new DBQuotaException(
-                    "File size quota exceeded",
-                    WebSQLConstants.QUOTA_PROP_RM_FILE_SIZE_LIMIT,
-                    fileSizeLimit.longValue(),
-                    data.length
-                );
-            }
+            checkFileSizeQuota(data.length);
             Path targetPath = getTargetPath(projectId, resourcePath);
             if (!forceOverwrite && Files.exists(targetPath)) {
                 throw new DBException("Resource '" + IOUtils.getFileNameWithoutExtension(targetPath) + "' already exists");
@@ -623,6 +665,152 @@ public class LocalResourceController extends BaseLocalResourceController {
         return DEFAULT_CHANGE_ID;
     }
 
+    @NotNull
+    @Override
+    public SeekableByteChannel openResourceChannel(
+        @NotNull String projectId,
+        @NotNull String resourcePath,
+        @NotNull Set<? extends OpenOption> options
+    ) throws DBException {
+        validateResourcePath(resourcePath);
+        Path targetPath = getTargetPath(projectId, resourcePath);
+        boolean exists = Files.exists(targetPath);
+        if (!options.contains(StandardOpenOption.WRITE) && !options.contains(StandardOpenOption.APPEND)) {
+            if (!exists) {
+                throw new DBException("Resource '" + resourcePath + "' doesn't exists");
+            }
+            return doFileReadOperation(projectId, targetPath, () -> {
+                try {
+                    return FileChannel.open(targetPath, StandardOpenOption.READ);
+                } catch (IOException e) {
+                    throw new DBException("Error reading resource '" + resourcePath + "'", e);
+                }
+            });
+        }
+        if (exists && options.contains(StandardOpenOption.CREATE_NEW)) {
+            throw new DBException("Resource '" + IOUtils.getFileNameWithoutExtension(targetPath) + "' already exists");
+        }
+        if (!exists && !options.contains(StandardOpenOption.CREATE) && !options.contains(StandardOpenOption.CREATE_NEW)) {
+            throw new DBException("Resource '" + resourcePath + "' doesn't exists");
+        }
+        createFolder(targetPath.getParent());
+        // Data is written to a hidden file, so readers never see partially written resource
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(targetPath.getParent(), "." + targetPath.getFileName(), ".tmp");
+            if (exists && !options.contains(StandardOpenOption.TRUNCATE_EXISTING)) {
+                Files.copy(targetPath, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            Set<OpenOption> channelOptions = new HashSet<>();
+            channelOptions.add(StandardOpenOption.WRITE);
+            if (options.contains(StandardOpenOption.READ)) {
+                channelOptions.add(StandardOpenOption.READ);
+            }
+            if (options.contains(StandardOpenOption.APPEND)) {
+                channelOptions.add(StandardOpenOption.APPEND);
+            }
+            FileChannel channel = FileChannel.open(tempFile, channelOptions);
+            Number fileSizeLimit = getFileSizeLimit();
+            return new RMResourceWriteChannel(
+                channel,
+                tempFile,
+                fileSizeLimit == null ? null : fileSizeLimit.longValue(),
+                file -> commitResourceContents(projectId, resourcePath, targetPath, file, !exists)
+            );
+        } catch (IOException | RuntimeException e) {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ex) {
+                    log.debug("Error deleting temp file: " + ex.getMessage());
+                }
+            }
+            throw new DBException("Error opening resource '" + resourcePath + "' for writing", e);
+        }
+    }
+
+    private void commitResourceContents(
+        @NotNull String projectId,
+        @NotNull String resourcePath,
+        @NotNull Path targetPath,
+        @NotNull Path tempFile,
+        boolean isNew
+    ) throws DBException {
+        try (var ignoredLock = lockController.lockProject(projectId, "setResourceContents")) {
+            try {
+                checkFileSizeQuota(Files.size(tempFile));
+            } catch (IOException e) {
+                throw new DBException("Error reading resource size", e);
+            }
+            doFileWriteOperation(projectId, targetPath, () -> {
+                try {
+                    log.debug("Writing data to resource '" + targetPath + " in project " + projectId + "'");
+                    try {
+                        Files.move(tempFile, targetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(tempFile, targetPath, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } catch (IOException e) {
+                    throw new DBException("Error writing resource '" + resourcePath + "'", e);
+                }
+                return null;
+            });
+            if (isNew) {
+                fireRmResourceAddEvent(projectId, resourcePath);
+            }
+        }
+    }
+
+    @Override
+    public long transferResourceContents(
+        @NotNull String projectId,
+        @NotNull String resourcePath,
+        long offset,
+        long length,
+        @NotNull WritableByteChannel target
+    ) throws DBException {
+        validateResourcePath(resourcePath);
+        Path targetPath = getTargetPath(projectId, resourcePath);
+        if (!Files.exists(targetPath)) {
+            throw new DBException("Resource '" + resourcePath + "' doesn't exists");
+        }
+        return doFileReadOperation(projectId, targetPath, () -> {
+            try (FileChannel channel = FileChannel.open(targetPath, StandardOpenOption.READ)) {
+                long end = length < 0 ? channel.size() : Math.min(channel.size(), offset + length);
+                long position = offset;
+                // transferTo may transfer less than requested
+                while (position < end) {
+                    long transferred = channel.transferTo(position, end - position, target);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    position += transferred;
+                }
+                return Math.max(0, position - offset);
+            } catch (IOException e) {
+                throw new DBException("Error reading resource '" + resourcePath + "'", e);
+            }
+        });
+    }
+
+    @Nullable
+    private Number getFileSizeLimit() {
+        return ServletAppUtils.getServletApplication()
+            .getAppConfiguration()
+            .getResourceQuota(WebSQLConstants.QUOTA_PROP_RM_FILE_SIZE_LIMIT);
+    }
+
+    private void checkFileSizeQuota(long size) throws DBQuotaException {
+        Number fileSizeLimit = getFileSizeLimit();
+        if (fileSizeLimit != null && size > fileSizeLimit.longValue()) {
+            throw new DBQuotaException(
+                "File size quota exceeded",
+                WebSQLConstants.QUOTA_PROP_RM_FILE_SIZE_LIMIT,
+                fileSizeLimit.longValue(),
+                size
+            );
+        }
+    }
 
     @NotNull
     @Override
@@ -867,50 +1055,52 @@ public class LocalResourceController extends BaseLocalResourceController {
 
         for (var resourceName : relativeResourcePath) {
             resourcePath = resourcePath.resolve(resourceName);
-            result.add(makeResourceFromPath(projectId, resourcePath, null, false, false, recursive));
+            result.add(makeResourceFromPath(projectId, null, resourcePath, null, false, recursive));
         }
 
         return result;
     }
 
+    @Nullable
     private RMResource makeResourceFromPath(
         @NotNull String projectId,
+        @Nullable BaseProjectImpl project,
         @NotNull Path path,
         @Nullable String nameMask,
-        boolean readProperties,
         boolean readHistory,
         boolean recursive
     ) {
-        if (Files.notExists(path)) {
+        // All metadata is read with a single call
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.debug("Error reading file attributes: " + e.getMessage());
             return null;
         }
         RMResource resource = new RMResource();
         resource.setName(path.getFileName().toString());
-        resource.setFolder(Files.isDirectory(path));
+        resource.setFolder(attributes.isDirectory());
         if (!resource.isFolder()) {
-            try {
-                resource.setLastModified(
-                    Files.getLastModifiedTime(path).toMillis());
-            } catch (IOException e) {
-                log.debug("Error getting last modified time: " + e.getMessage());
-            }
+            resource.setLastModified(attributes.lastModifiedTime().toMillis());
         }
         try {
             if (!resource.isFolder()) {
-                resource.setLength(Files.size(path));
+                resource.setLength(attributes.size());
             }
             if (readHistory) {
                 resource.setChanges(
                     Collections.singletonList(
                         new RMResourceChange(
                             DEFAULT_CHANGE_ID,
-                            new Date(Files.getLastModifiedTime(path).toMillis()),
+                            new Date(attributes.lastModifiedTime().toMillis()),
                             null
                         ))
                 );
             }
-            if (readProperties) {
-                final BaseProjectImpl project = getWebProject(projectId, true);
+            if (project != null) {
                 final String resourcePath = getProjectRelativePath(projectId, path);
                 final Map<String, Object> properties = project.getResourceProperties(resourcePath);
 
@@ -924,7 +1114,7 @@ public class LocalResourceController extends BaseLocalResourceController {
 
         if (recursive && resource.isFolder()) {
             try {
-                resource.setChildren(readChildResources(projectId, path, nameMask, readProperties, readHistory, true));
+                resource.setChildren(readChildResources(projectId, project, path, nameMask, readHistory, true));
             } catch (IOException e) {
                 log.error(e);
             }
@@ -0,0 +1,155 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2025 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.model.rm.local;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.model.rm.RMProject;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user cache of accessible projects lists.
+ * Entries are invalidated by project, object permission and subject permission (e.g. team membership) events.
+ * Resource changes do not affect the list. TTL is a safety net for missed events.
+ */
+public class RMAccessibleProjectsCache {
+
+    private static final long DEFAULT_TTL = TimeUnit.SECONDS.toMillis(60);
+
+    private static final RMAccessibleProjectsCache INSTANCE = new RMAccessibleProjectsCache(DEFAULT_TTL);
+
+    private record Entry(@NotNull String accessKey, @NotNull RMProject[] projects, long expireTime) {
+        boolean containsProject(@NotNull String projectId) {
+            for (RMProject project : projects) {
+                if (projectId.equals(project.getId())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttl;
+    // Incremented on each invalidation, lists read before invalidation are not cached
+    private final AtomicLong generation = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    RMAccessibleProjectsCache(long ttl) {
+        this.ttl = ttl;
+    }
+
+    @NotNull
+    public static RMAccessibleProjectsCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns cached projects of the user.
+     *
+     * @param accessKey describes user permissions which affect the projects list,
+     *                  entry computed with other permissions is not returned
+     */
+    @Nullable
+    public RMProject[] getProjects(@NotNull String userId, @NotNull String accessKey) {
+        Entry entry = entries.get(userId);
+        if (entry == null || !entry.accessKey().equals(accessKey) || entry.expireTime() < System.currentTimeMillis()) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return Arrays.copyOf(entry.projects(), entry.projects().length);
+    }
+
+    /**
+     * Current cache generation. Must be obtained before reading projects which will be put in cache.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public void putProjects(
+        @NotNull String userId,
+        @NotNull String accessKey,
+        @NotNull RMProject[] projects,
+        long readGeneration
+    ) {
+        Entry entry = new Entry(accessKey, Arrays.copyOf(projects, projects.length), System.currentTimeMillis() + ttl);
+        entries.put(userId, entry);
+        if (generation.get() != readGeneration) {
+            // Invalidated while projects were read
+            entries.remove(userId, entry);
+        }
+    }
+
+    public void invalidateUser(@NotNull String userId) {
+        generation.incrementAndGet();
+        if (entries.remove(userId) != null) {
+            invalidations.increment();
+        }
+    }
+
+    /**
+     * Removes lists containing the project
+     */
+    public void invalidateProject(@NotNull String projectId) {
+        generation.incrementAndGet();
+        entries.values().removeIf(entry -> {
+            if (entry.containsProject(projectId)) {
+                invalidations.increment();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        invalidations.add(entries.size());
+        entries.clear();
+    }
+
+    public int getSize() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.sum();
+    }
+
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+}
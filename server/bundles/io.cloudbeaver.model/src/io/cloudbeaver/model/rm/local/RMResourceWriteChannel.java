@@ -0,0 +1,135 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2025 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.model.rm.local;
+
+import io.cloudbeaver.service.sql.WebSQLConstants;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.model.sql.DBQuotaException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Channel which writes resource contents into a temporary file.
+ * Resource is replaced with the temporary file on close.
+ */
+class RMResourceWriteChannel implements SeekableByteChannel {
+
+    interface CommitHandler {
+        void commit(@NotNull Path tempFile) throws DBException;
+    }
+
+    @NotNull
+    private final FileChannel channel;
+    @NotNull
+    private final Path tempFile;
+    @Nullable
+    private final Long sizeLimit;
+    @NotNull
+    private final CommitHandler commitHandler;
+    private boolean closed;
+
+    RMResourceWriteChannel(
+        @NotNull FileChannel channel,
+        @NotNull Path tempFile,
+        @Nullable Long sizeLimit,
+        @NotNull CommitHandler commitHandler
+    ) {
+        this.channel = channel;
+        this.tempFile = tempFile;
+        this.sizeLimit = sizeLimit;
+        this.commitHandler = commitHandler;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        return channel.read(dst);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        if (sizeLimit != null && channel.position() + src.remaining() > sizeLimit) {
+            long size = channel.position() + src.remaining();
+            abort();
+            throw new IOException(new DBQuotaException(
+                "File size quota exceeded",
+                WebSQLConstants.QUOTA_PROP_RM_FILE_SIZE_LIMIT,
+                sizeLimit,
+                size
+            ));
+        }
+        return channel.write(src);
+    }
+
+    @Override
+    public long position() throws IOException {
+        return channel.position();
+    }
+
+    @Override
+    public SeekableByteChannel position(long newPosition) throws IOException {
+        channel.position(newPosition);
+        return this;
+    }
+
+    @Override
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) throws IOException {
+        channel.truncate(size);
+        return this;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            channel.close();
+            commitHandler.commit(tempFile);
+        } catch (DBException e) {
+            throw new IOException("Error writing resource: " + e.getMessage(), e);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void abort() throws IOException {
+        closed = true;
+        try {
+            channel.close();
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+}
@@ -28,12 +28,17 @@ import org.jkiss.utils.IOUtils;
 import java.io.IOException;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.nio.file.*;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
- * File based resource locks
+ * File based resource locks.
+ * Threads of the same controller wait for each other on per-project in-process locks,
+ * lock files are used to coordinate with other controllers and server nodes.
  */
 public class RMFileLockController {
     private static final Log log = Log.getLog(RMFileLockController.class);
@@ -48,7 +53,8 @@ public class RMFileLockController {
     private final Path lockFolderPath;
     private final String applicationId;
     private final int maxLockTime;
-
+    // In-process project locks, one permit per project
+    private final Map<String, Semaphore> projectLocks = new ConcurrentHashMap<>();
 
     public RMFileLockController(ServletApplication application) throws DBException {
         this(application, DEFAULT_MAX_LOCK_TIME);
@@ -75,30 +81,74 @@ public class RMFileLockController {
      */
     @NotNull
     public RMLock lockProject(@NotNull String projectId, @NotNull String operationName) throws DBException {
-        synchronized (RMFileLockController.class) {
-            try {
-                RMLockInfo lockInfo = new RMLockInfo.Builder(projectId, UUID.randomUUID().toString())
-                    .setApplicationId(applicationId)
-                    .setOperationName(operationName)
-                    .setOperationStartTime(System.currentTimeMillis())
-                    .build();
-                Path projectLockFile = getProjectLockFilePath(projectId);
-
-                if (!IOUtils.isFileFromDefaultFS(lockFolderPath)) {
-                    // fake lock for external file system?
-                    return new RMLock(projectLockFile);
-                }
-                createLockFolderIfNeeded();
-                createProjectFolder(projectId);
+        Semaphore projectLock = getProjectLock(projectId);
+        // Total wait for in-process and lock file locks is limited by the max lock time
+        long deadline = System.currentTimeMillis() + maxLockTime;
+        boolean locked;
+        try {
+            locked = projectLock.tryAcquire(maxLockTime, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DBException("Failed to lock project: " + projectId, e);
+        }
+        if (!locked) {
+            // Lock owner hangs, lock file check will force unlock it
+            log.warn("Project '" + projectId + "' has not been unlocked within the expected period");
+        }
+        return lockProject(projectId, operationName, locked ? projectLock : null, deadline);
+    }
 
-                createLockFile(projectLockFile, lockInfo);
-                return new RMLock(projectLockFile);
-            } catch (Exception e) {
-                throw new DBException("Failed to lock project: " + projectId, e);
+    @NotNull
+    private RMLock lockProject(
+        @NotNull String projectId,
+        @NotNull String operationName,
+        @Nullable Semaphore acquiredProjectLock,
+        long deadline
+    ) throws DBException {
+        Runnable unlockHandler = acquiredProjectLock == null ? null : acquiredProjectLock::release;
+        try {
+            RMLockInfo lockInfo = new RMLockInfo.Builder(projectId, UUID.randomUUID().toString())
+                .setApplicationId(applicationId)
+                .setOperationName(operationName)
+                .setOperationStartTime(System.currentTimeMillis())
+                .build();
+            Path projectLockFile = getProjectLockFilePath(projectId);
+
+            if (!IOUtils.isFileFromDefaultFS(lockFolderPath)) {
+                // fake lock for external file system?
+                return new RMLock(projectLockFile, unlockHandler);
+            }
+            createLockFolderIfNeeded();
+            createProjectFolder(projectId);
+
+            createLockFile(projectLockFile, lockInfo, deadline);
+            return new RMLock(projectLockFile, unlockHandler);
+        } catch (Exception e) {
+            if (acquiredProjectLock != null) {
+                acquiredProjectLock.release();
             }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new DBException("Failed to lock project: " + projectId, e);
         }
     }
 
+    @NotNull
+    private Semaphore getProjectLock(@NotNull String projectId) {
+        return projectLocks.computeIfAbsent(projectId, id -> new Semaphore(1, true));
+    }
+
+    /**
+     * Forgets in-process lock of the deleted project. The lock is kept if it is held or awaited by other threads.
+     */
+    public void removeProjectLock(@NotNull String projectId) {
+        projectLocks.computeIfPresent(
+            projectId,
+            (id, projectLock) -> projectLock.availablePermits() > 0 && !projectLock.hasQueuedThreads() ? null : projectLock
+        );
+    }
+
     /**
      * if the project is already locked, the operation will be executed as a child of the first lock,
      * otherwise it creates its own lock.
@@ -109,12 +159,17 @@ public class RMFileLockController {
      */
     @Nullable
     public RMLock lockIfNotLocked(@NotNull String projectId, @NotNull String operationName) throws DBException {
-        synchronized (RMFileLockController.class) {
-            if (isProjectLocked(projectId)) {
-                return null;
-            }
-            return lockProject(projectId, operationName);
+        Semaphore projectLock = getProjectLock(projectId);
+        if (!projectLock.tryAcquire()) {
+            // Locked in this process
+            return null;
+        }
+        if (isProjectLocked(projectId)) {
+            // Locked by another controller or server node
+            projectLock.release();
+            return null;
         }
+        return lockProject(projectId, operationName, projectLock, System.currentTimeMillis() + maxLockTime);
     }
 
     /**
@@ -129,11 +184,18 @@ public class RMFileLockController {
         return Files.exists(lockFilePath);
     }
 
-    private void createLockFile(Path projectLockFile, RMLockInfo lockInfo) throws DBException, InterruptedException {
+    private void createLockFile(
+        Path projectLockFile,
+        RMLockInfo lockInfo,
+        long deadline
+    ) throws DBException, InterruptedException {
         boolean lockFileCreated = false;
+        long waitDeadline = deadline;
         while (!lockFileCreated) {
             if (Files.exists(projectLockFile)) {
-                awaitUnlock(lockInfo.getProjectId(), projectLockFile);
+                awaitUnlock(lockInfo.getProjectId(), projectLockFile, waitDeadline);
+                // the lock was intercepted by another rm instance, its owner gets the full lock time
+                waitDeadline = System.currentTimeMillis() + maxLockTime;
             }
             try {
                 Files.createFile(projectLockFile);
@@ -152,7 +214,7 @@ public class RMFileLockController {
             } catch (IOException e) {
                 log.error("Failed to write lock info, unlock project: " + lockInfo.getProjectId());
                 try {
-                    Files.deleteIfExists(lockFolderPath);
+                    Files.deleteIfExists(projectLockFile);
                 } catch (IOException ex) {
                     throw new DBException("Failed to remove invalid lock file: " + projectLockFile, ex);
                 }
@@ -178,32 +240,38 @@ public class RMFileLockController {
         }
     }
 
-    protected void awaitUnlock(String projectId, Path projectLockFile) throws InterruptedException, DBException {
+    /**
+     * Waits until the lock file is removed or the deadline (in milliseconds since epoch) is reached.
+     */
+    protected void awaitUnlock(String projectId, Path projectLockFile, long deadline) throws InterruptedException, DBException {
         if (!isLocked(projectLockFile)) {
             return;
         }
-        awaitingUnlock(projectId, projectLockFile);
+        awaitingUnlock(projectId, projectLockFile, deadline);
     }
 
-    protected void awaitingUnlock(String projectId, Path projectLockFile) throws DBException, InterruptedException {
+    protected void awaitingUnlock(String projectId, Path projectLockFile, long deadline) throws DBException, InterruptedException {
         log.info("Waiting for a file to be unlocked: " + projectLockFile);
         RMLockInfo originalLockInfo = readLockInfo(projectId, projectLockFile);
         boolean fileUnlocked = originalLockInfo == null; //lock can be removed at the moment when we try to read lock file info
-        int maxIterations = maxLockTime / CHECK_PERIOD;
-        int currentCheckCount = 0;
 
-        while (!fileUnlocked) {
-            fileUnlocked = !isLocked(projectLockFile);
-            if (currentCheckCount >= maxIterations || fileUnlocked) {
-                break;
-            }
-            if (originalLockInfo != null & originalLockInfo.isBlank()) {
-                // possible in situation where the project has just been locked
-                // and the lock information has not yet been written
-                originalLockInfo = readLockInfo(projectId, projectLockFile);
+        try (WatchService watchService = openLockWatchService(projectLockFile)) {
+            while (!fileUnlocked) {
+                fileUnlocked = !isLocked(projectLockFile);
+                // watcher may wake up on unrelated changes, so the wait is limited by time, not by number of checks
+                long remainingTime = deadline - System.currentTimeMillis();
+                if (remainingTime <= 0 || fileUnlocked) {
+                    break;
+                }
+                if (originalLockInfo != null & originalLockInfo.isBlank()) {
+                    // possible in situation where the project has just been locked
+                    // and the lock information has not yet been written
+                    originalLockInfo = readLockInfo(projectId, projectLockFile);
+                }
+                awaitLockFileChange(watchService, Math.min(remainingTime, CHECK_PERIOD));
             }
-            currentCheckCount++;
-            Thread.sleep(CHECK_PERIOD);
+        } catch (IOException e) {
+            log.debug("Failed to close lock file watcher", e);
         }
         if (fileUnlocked) {
             return;
@@ -219,7 +287,41 @@ public class RMFileLockController {
         if (originalLockInfo.getOperationId().equals(currentLockInfo.getOperationId())) {
             forceUnlock(projectLockFile);
         } else {
-            awaitUnlock(projectId, lockFolderPath);
+            // lock of another operation, wait for it from the beginning
+            awaitUnlock(projectId, projectLockFile, System.currentTimeMillis() + maxLockTime);
+        }
+    }
+
+    /**
+     * Lock file removal is reported by file system watcher, so waiters wake up immediately.
+     * Returns null if watching is not supported, then waiters just check lock file periodically.
+     */
+    @Nullable
+    private WatchService openLockWatchService(@NotNull Path projectLockFile) {
+        try {
+            WatchService watchService = projectLockFile.getFileSystem().newWatchService();
+            try {
+                projectLockFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_DELETE);
+            } catch (Exception e) {
+                watchService.close();
+                throw e;
+            }
+            return watchService;
+        } catch (Exception e) {
+            log.debug("Lock file watcher is not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void awaitLockFileChange(@Nullable WatchService watchService, long timeout) throws InterruptedException {
+        if (watchService == null) {
+            Thread.sleep(timeout);
+            return;
+        }
+        WatchKey watchKey = watchService.poll(timeout, TimeUnit.MILLISECONDS);
+        if (watchKey != null) {
+            watchKey.pollEvents();
+            watchKey.reset();
         }
     }
 
@@ -16,11 +16,13 @@
  */
 package io.cloudbeaver.model.rm.lock;
 
+import org.jkiss.code.Nullable;
 import org.jkiss.dbeaver.Log;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Resource Manager resource lock
@@ -29,22 +31,43 @@ public class RMLock implements AutoCloseable {
     private static final Log log = Log.getLog(RMLock.class);
 
     private final Path lockFilePath;
+    @Nullable
+    private final Runnable unlockHandler;
+    private final AtomicBoolean unlocked = new AtomicBoolean();
 
     public RMLock(Path lockFilePath) {
+        this(lockFilePath, null);
+    }
+
+    public RMLock(Path lockFilePath, @Nullable Runnable unlockHandler) {
         this.lockFilePath = lockFilePath;
+        this.unlockHandler = unlockHandler;
     }
 
     /**
      * Unlock resource and remove .lock file
      */
     public void unlock() {
+        if (!unlocked.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            deleteLockFile();
+        } finally {
+            if (unlockHandler != null) {
+                unlockHandler.run();
+            }
+        }
+    }
+
+    private void deleteLockFile() {
         try {
             Files.deleteIfExists(lockFilePath);
         } catch (IOException e) {
             log.error("Failed to unlock file: " + lockFilePath, e);
             if (Files.exists(lockFilePath)) {
                 // file still locket, try to unlock again
-                unlock();
+                deleteLockFile();
             }
         }
     }
@@ -19,6 +19,7 @@ package io.cloudbeaver.model.session;
 import io.cloudbeaver.model.WebServerMessage;
 import io.cloudbeaver.model.app.ServletApplication;
 import io.cloudbeaver.model.app.ServletAuthApplication;
+import io.cloudbeaver.websocket.CBEventMessage;
 import io.cloudbeaver.websocket.CBWebSessionEventHandler;
 import org.jkiss.code.NotNull;
 import org.jkiss.code.Nullable;
@@ -83,14 +84,21 @@ public abstract class BaseWebSession extends AbstractSessionPersistent {
     }
 
     public void addSessionEvent(WSEvent event) {
-        boolean eventAllowedByFilter = eventsFilter.isEventAllowed(event);
+        addSessionEvent(new CBEventMessage(event));
+    }
+
+    /**
+     * Adds event which may be broadcast to many sessions. Its message is shared between all sessions.
+     */
+    public void addSessionEvent(@NotNull CBEventMessage message) {
+        boolean eventAllowedByFilter = eventsFilter.isEventAllowed(message.getEvent());
         if (!eventAllowedByFilter) {
             return;
         }
         synchronized (sessionEventHandlers) {
             for (CBWebSessionEventHandler eventHandler : sessionEventHandlers) {
                 try {
-                    eventHandler.handleWebSessionEvent(event);
+                    eventHandler.handleWebSessionEvent(message);
                 } catch (DBException e) {
                     log.error(e.getMessage(), e);
                     addSessionError(e);
@@ -0,0 +1,52 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2024 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.websocket;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.model.websocket.WSUtils;
+import org.jkiss.dbeaver.model.websocket.event.WSEvent;
+
+/**
+ * Websocket event with its client message.
+ * Message is encoded on first use, so an event broadcast to many sessions is encoded once for all sockets.
+ */
+public class CBEventMessage {
+
+    @NotNull
+    private final WSEvent event;
+    private volatile String text;
+
+    public CBEventMessage(@NotNull WSEvent event) {
+        this.event = event;
+    }
+
+    @NotNull
+    public WSEvent getEvent() {
+        return event;
+    }
+
+    @NotNull
+    public String getText() {
+        String result = text;
+        if (result == null) {
+            // Concurrent first calls may encode twice, result is the same
+            result = WSUtils.clientGson.toJson(event);
+            text = result;
+        }
+        return result;
+    }
+}
@@ -16,12 +16,17 @@
  */
 package io.cloudbeaver.websocket;
 
+import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.model.websocket.event.WSEvent;
 
 public interface CBWebSessionEventHandler {
     void handleWebSessionEvent(WSEvent event) throws DBException;
 
+    default void handleWebSessionEvent(@NotNull CBEventMessage message) throws DBException {
+        handleWebSessionEvent(message.getEvent());
+    }
+
     void close();
 
 }
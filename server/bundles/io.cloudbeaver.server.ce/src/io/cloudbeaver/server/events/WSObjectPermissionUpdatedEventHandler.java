@@ -17,6 +17,7 @@
 package io.cloudbeaver.server.events;
 
 import io.cloudbeaver.WebSessionGlobalProjectImpl;
+import io.cloudbeaver.model.rm.local.RMAccessibleProjectsCache;
 import io.cloudbeaver.model.session.BaseWebSession;
 import io.cloudbeaver.model.session.WebSession;
 import io.cloudbeaver.server.CBApplication;
@@ -48,6 +49,8 @@ public class WSObjectPermissionUpdatedEventHandler extends WSDefaultEventHandler
         String objectId = event.getObjectId();
         Consumer<BaseWebSession> runnable = switch (event.getSmObjectType()) {
             case project:
+                // permission may be granted to a team, so subjects of the event are not enough to find affected users
+                RMAccessibleProjectsCache.getInstance().invalidateAll();
                 yield getUpdateUserProjectsInfoConsumer(event, objectId);
             case datasource:
                 try {
@@ -21,6 +21,7 @@ import com.google.gson.GsonBuilder;
 import io.cloudbeaver.WebProjectImpl;
 import io.cloudbeaver.model.session.BaseWebSession;
 import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.websocket.CBEventMessage;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.rm.RMEvent;
@@ -36,7 +37,11 @@ public class WSRmResourceUpdatedEventHandlerImpl extends WSAbstractProjectEventH
     private static final Gson gson = new GsonBuilder().create();
 
     @Override
-    protected void updateSessionData(@NotNull BaseWebSession activeUserSession, @NotNull WSResourceUpdatedEvent event) {
+    protected void updateSessionData(
+        @NotNull BaseWebSession activeUserSession,
+        @NotNull WSResourceUpdatedEvent event,
+        @NotNull CBEventMessage message
+    ) {
         if (activeUserSession instanceof WebSession) {
             var webSession = (WebSession) activeUserSession;
             acceptChangesInNavigatorTree(
@@ -45,7 +50,7 @@ public class WSRmResourceUpdatedEventHandlerImpl extends WSAbstractProjectEventH
                 webSession.getProjectById(event.getProjectId())
             );
         }
-        activeUserSession.addSessionEvent(event);
+        activeUserSession.addSessionEvent(message);
     }
 
     private void acceptChangesInNavigatorTree(@NotNull String eventId, String resourcePath, WebProjectImpl project) {
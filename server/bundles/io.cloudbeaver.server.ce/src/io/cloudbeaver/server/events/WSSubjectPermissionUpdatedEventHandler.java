@@ -16,12 +16,15 @@
  */
 package io.cloudbeaver.server.events;
 
+import io.cloudbeaver.model.rm.local.RMAccessibleProjectsCache;
 import io.cloudbeaver.model.session.BaseWebSession;
 import io.cloudbeaver.model.session.WebHeadlessSession;
 import io.cloudbeaver.service.security.SMUtils;
+import io.cloudbeaver.websocket.CBEventMessage;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.security.SMSubjectType;
 import org.jkiss.dbeaver.model.websocket.event.permissions.WSSubjectPermissionEvent;
 import org.jkiss.utils.ArrayUtils;
 import org.jkiss.utils.CommonUtils;
@@ -32,7 +35,22 @@ public class WSSubjectPermissionUpdatedEventHandler extends WSDefaultEventHandle
     private static final Log log = Log.getLog(WSSubjectPermissionUpdatedEventHandler.class);
 
     @Override
-    protected void updateSessionData(@NotNull BaseWebSession activeUserSession, @NotNull WSSubjectPermissionEvent event) {
+    public void handleEvent(@NotNull WSSubjectPermissionEvent event) {
+        if (event.getSubjectType() == SMSubjectType.user) {
+            // User teams may be changed, shared projects are granted to teams
+            RMAccessibleProjectsCache.getInstance().invalidateUser(event.getSubjectId());
+        } else {
+            RMAccessibleProjectsCache.getInstance().invalidateAll();
+        }
+        super.handleEvent(event);
+    }
+
+    @Override
+    protected void updateSessionData(
+        @NotNull BaseWebSession activeUserSession,
+        @NotNull WSSubjectPermissionEvent event,
+        @NotNull CBEventMessage message
+    ) {
         var oldUserPermissions = new HashSet<>(activeUserSession.getUserContext().getUserPermissions());
         try {
             activeUserSession.getUserContext().refreshSMSession();
@@ -45,7 +63,7 @@ public class WSSubjectPermissionUpdatedEventHandler extends WSDefaultEventHandle
         boolean shouldUpdateData = activeUserSession instanceof WebHeadlessSession
             || !(SMUtils.isRMAdmin(oldUserPermissions) && SMUtils.isRMAdmin(newUserPermissions));
         if (shouldUpdateData) {
-            super.updateSessionData(activeUserSession, event);
+            super.updateSessionData(activeUserSession, event, message);
         }
     }
 
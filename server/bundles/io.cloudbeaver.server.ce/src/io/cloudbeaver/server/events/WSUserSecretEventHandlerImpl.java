@@ -19,6 +19,7 @@ package io.cloudbeaver.server.events;
 import io.cloudbeaver.WebSessionProjectImpl;
 import io.cloudbeaver.model.session.BaseWebSession;
 import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.websocket.CBEventMessage;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.Log;
@@ -36,9 +37,13 @@ public class WSUserSecretEventHandlerImpl extends WSDefaultEventHandler<WSUserSe
     private static final Log log = Log.getLog(WSUserSecretEventHandlerImpl.class);
 
     @Override
-    protected void updateSessionData(@NotNull BaseWebSession activeUserSession, @NotNull WSUserSecretEvent event) {
+    protected void updateSessionData(
+        @NotNull BaseWebSession activeUserSession,
+        @NotNull WSUserSecretEvent event,
+        @NotNull CBEventMessage message
+    ) {
         if (!(activeUserSession instanceof WebSession webSession)) {
-            activeUserSession.addSessionEvent(event);
+            activeUserSession.addSessionEvent(message);
             return;
         }
         WebSessionProjectImpl project = webSession.getProjectById(event.getProjectId());
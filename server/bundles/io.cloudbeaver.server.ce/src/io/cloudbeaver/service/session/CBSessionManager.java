@@ -25,6 +25,7 @@ import io.cloudbeaver.server.CBApplication;
 import io.cloudbeaver.server.WebAppSessionManager;
 import io.cloudbeaver.server.events.WSWebUtils;
 import io.cloudbeaver.service.DBWSessionHandler;
+import io.cloudbeaver.websocket.CBEventMessage;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
@@ -39,6 +40,10 @@ import org.jkiss.dbeaver.model.websocket.event.session.WSSessionStateEvent;
 import org.jkiss.utils.CommonUtils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.stream.Collectors;
 
 /**
@@ -49,7 +54,15 @@ public class CBSessionManager implements WebAppSessionManager {
     private static final Log log = Log.getLog(CBSessionManager.class);
 
     private final CBApplication application;
-    private final Map<String, BaseWebSession> sessionMap = new HashMap<>();
+    private final Map<String, BaseWebSession> sessionMap = new ConcurrentHashMap<>();
+    // Sessions which are being created or restored right now. Other requests for the same id wait for them.
+    private final Map<String, CompletableFuture<Void>> pendingSessions = new ConcurrentHashMap<>();
+    // Expiration deadlines ordered by time, one entry per registered session.
+    // Session touches do not reschedule entries: when an entry becomes due, it is rescheduled by the actual access time.
+    private final PriorityBlockingQueue<SessionDeadline> expirationQueue = new PriorityBlockingQueue<>();
+    // Queued deadline of each session id. Closed sessions keep their entry until it becomes due.
+    private final Map<String, SessionDeadline> sessionDeadlines = new ConcurrentHashMap<>();
+    private volatile long scheduledMaxIdleTime;
 
     public CBSessionManager(CBApplication application) {
         this.application = application;
@@ -69,10 +82,7 @@ public class CBSessionManager implements WebAppSessionManager {
 
     @Override
     public BaseWebSession closeSession(@NotNull String sessionId) {
-        BaseWebSession webSession;
-        synchronized (sessionMap) {
-            webSession = sessionMap.remove(sessionId);
-        }
+        BaseWebSession webSession = sessionMap.remove(sessionId);
         if (webSession != null) {
             log.debug("> Close session '" + sessionId + "'");
             webSession.close();
@@ -115,47 +125,39 @@ public class CBSessionManager implements WebAppSessionManager {
     ) throws DBWebException {
         HttpSession httpSession = request.getSession(true);
         String sessionId = httpSession.getId();
-        WebSession webSession;
-        synchronized (sessionMap) {
-            var baseWebSession = sessionMap.get(sessionId);
-            if (baseWebSession == null && CBApplication.getInstance().isConfigurationMode()) {
-                try {
-                    webSession = createWebSessionImpl(new WebHttpRequestInfo(request));
-                } catch (DBException e) {
-                    throw new DBWebException("Failed to create web session", e);
-                }
-                sessionMap.put(sessionId, webSession);
-            } else if (baseWebSession == null) {
-                try {
-                    webSession = createWebSessionImpl(new WebHttpRequestInfo(request));
-                } catch (DBException e) {
-                    throw new DBWebException("Failed to create web session", e);
-                }
-
-                boolean restored = false;
-                try {
-                    restored = restorePreviousUserSession(webSession);
-                } catch (DBException e) {
-                    log.error("Failed to restore previous user session", e);
-                }
-
-                if (!restored && errorOnNoFound && !httpSession.isNew()) {
-                    throw new DBWebException("Session has expired", DBWebException.ERROR_CODE_SESSION_EXPIRED);
-                }
+        BaseWebSession baseWebSession = sessionMap.get(sessionId);
+        if (baseWebSession == null) {
+            try {
+                baseWebSession = getOrCreateSession(sessionId, () -> {
+                    WebSession webSession = createWebSessionImpl(new WebHttpRequestInfo(request));
+                    if (CBApplication.getInstance().isConfigurationMode()) {
+                        return webSession;
+                    }
+                    boolean restored = false;
+                    try {
+                        restored = restorePreviousUserSession(webSession);
+                    } catch (DBException e) {
+                        log.error("Failed to restore previous user session", e);
+                    }
 
-                log.debug((restored ? "Restored " : "New ") + "web session '" + webSession.getSessionId() + "'");
+                    if (!restored && errorOnNoFound && !httpSession.isNew()) {
+                        throw new DBWebException("Session has expired", DBWebException.ERROR_CODE_SESSION_EXPIRED);
+                    }
 
-                webSession.setCacheExpired(!httpSession.isNew());
+                    log.debug((restored ? "Restored " : "New ") + "web session '" + webSession.getSessionId() + "'");
 
-                sessionMap.put(sessionId, webSession);
-            } else {
-                if (!(baseWebSession instanceof WebSession)) {
-                    throw new DBWebException("Unexpected session type: " + baseWebSession.getClass().getName());
-                }
-                webSession = (WebSession) baseWebSession;
+                    webSession.setCacheExpired(!httpSession.isNew());
+                    return webSession;
+                });
+            } catch (DBWebException e) {
+                throw e;
+            } catch (DBException e) {
+                throw new DBWebException("Failed to create web session", e);
             }
         }
-
+        if (!(baseWebSession instanceof WebSession webSession)) {
+            throw new DBWebException("Unexpected session type: " + baseWebSession.getClass().getName());
+        }
         return webSession;
     }
 
@@ -171,33 +173,74 @@ public class CBSessionManager implements WebAppSessionManager {
             log.debug("Http session is null. No Web Session returned");
             return null;
         }
-        WebSession webSession;
-        synchronized (sessionMap) {
-            if (sessionMap.containsKey(sessionId)) {
-                var cachedWebSession = sessionMap.get(sessionId);
-                if (!(cachedWebSession instanceof WebSession)) {
-                    log.warn("Unexpected session type: " + cachedWebSession.getClass().getName());
+        BaseWebSession cachedWebSession;
+        try {
+            cachedWebSession = getOrCreateSession(sessionId, () -> {
+                var oldAuthInfo = getApplication().getSecurityController().restoreUserSession(sessionId);
+                if (oldAuthInfo == null) {
+                    log.debug("Couldn't restore previous user session '" + sessionId + "'");
                     return null;
                 }
-                return (WebSession) cachedWebSession;
-            } else {
-                try {
-                    var oldAuthInfo = getApplication().getSecurityController().restoreUserSession(sessionId);
-                    if (oldAuthInfo == null) {
-                        log.debug("Couldn't restore previous user session '" + sessionId + "'");
-                        return null;
-                    }
 
-                    webSession = createWebSessionImpl(requestInfo);
-                    restorePreviousUserSession(webSession, oldAuthInfo);
+                WebSession webSession = createWebSessionImpl(requestInfo);
+                restorePreviousUserSession(webSession, oldAuthInfo);
+                log.debug("Web session restored");
+                return webSession;
+            });
+        } catch (DBException e) {
+            log.error("Failed to restore previous user session", e);
+            return null;
+        }
+        if (cachedWebSession != null && !(cachedWebSession instanceof WebSession)) {
+            log.warn("Unexpected session type: " + cachedWebSession.getClass().getName());
+            return null;
+        }
+        return (WebSession) cachedWebSession;
+    }
 
-                    sessionMap.put(sessionId, webSession);
-                    log.debug("Web session restored");
-                    return webSession;
-                } catch (DBException e) {
-                    log.error("Failed to restore previous user session", e);
-                    return null;
+    /**
+     * Returns registered session or creates a new one with the factory.
+     * Only one session is created for the same id at a time, concurrent callers wait for it
+     * and do not block requests of other sessions.
+     *
+     * @return session or null if factory didn't create it
+     */
+    @Nullable
+    private BaseWebSession getOrCreateSession(
+        @NotNull String sessionId,
+        @NotNull SessionFactory sessionFactory
+    ) throws DBException {
+        while (true) {
+            BaseWebSession session = sessionMap.get(sessionId);
+            if (session != null) {
+                return session;
+            }
+            CompletableFuture<Void> creation = new CompletableFuture<>();
+            CompletableFuture<Void> pendingCreation = pendingSessions.putIfAbsent(sessionId, creation);
+            if (pendingCreation != null) {
+                // Wait for the concurrent creation and check again: it may have failed or returned nothing
+                try {
+                    pendingCreation.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new DBException("Interrupted while waiting for session '" + sessionId + "'", e);
+                } catch (ExecutionException e) {
+                    // Creation future is never completed exceptionally
+                }
+                continue;
+            }
+            try {
+                session = sessionMap.get(sessionId);
+                if (session == null) {
+                    session = sessionFactory.createSession();
+                    if (session != null) {
+                        registerSession(sessionId, session);
+                    }
                 }
+                return session;
+            } finally {
+                pendingSessions.remove(sessionId, creation);
+                creation.complete(null);
             }
         }
     }
@@ -236,22 +279,18 @@ public class CBSessionManager implements WebAppSessionManager {
     @Override
     @Nullable
     public BaseWebSession getSession(@NotNull String sessionId) {
-        synchronized (sessionMap) {
-            return sessionMap.get(sessionId);
-        }
+        return sessionMap.get(sessionId);
     }
 
     @Override
     @Nullable
     public WebSession findWebSession(HttpServletRequest request) {
         String sessionId = request.getSession().getId();
-        synchronized (sessionMap) {
-            var session = sessionMap.get(sessionId);
-            if (session instanceof WebSession) {
-                return (WebSession) session;
-            }
-            return null;
+        var session = sessionMap.get(sessionId);
+        if (session instanceof WebSession) {
+            return (WebSession) session;
         }
+        return null;
     }
 
     @Override
@@ -266,18 +305,55 @@ public class CBSessionManager implements WebAppSessionManager {
         return null;
     }
 
+    private void registerSession(@NotNull String sessionId, @NotNull BaseWebSession session) {
+        sessionMap.put(sessionId, session);
+        SessionDeadline deadline = new SessionDeadline(
+            session.getLastAccessTimeMillis() + application.getMaxSessionIdleTime(), sessionId);
+        SessionDeadline previous = sessionDeadlines.put(sessionId, deadline);
+        if (previous != null) {
+            // Re-registered session, its old deadline is still queued
+            expirationQueue.remove(previous);
+        }
+        expirationQueue.add(deadline);
+    }
+
+    /**
+     * Closes sessions which were idle longer than max session idle time.
+     * Only sessions with due deadlines are visited.
+     */
     public void expireIdleSessions() {
         long maxSessionIdleTime = application.getMaxSessionIdleTime();
+        if (maxSessionIdleTime != scheduledMaxIdleTime) {
+            rescheduleAllSessions(maxSessionIdleTime);
+        }
 
+        long currentTime = System.currentTimeMillis();
         List<BaseWebSession> expiredList = new ArrayList<>();
-        synchronized (sessionMap) {
-            for (Iterator<BaseWebSession> iterator = sessionMap.values().iterator(); iterator.hasNext(); ) {
-                var session = iterator.next();
-                long idleMillis = System.currentTimeMillis() - session.getLastAccessTimeMillis();
-                if (idleMillis >= maxSessionIdleTime) {
-                    iterator.remove();
-                    expiredList.add(session);
+        for (SessionDeadline head = expirationQueue.peek(); head != null && head.deadline() <= currentTime; head = expirationQueue.peek()) {
+            SessionDeadline due = expirationQueue.poll();
+            if (due == null) {
+                break;
+            }
+            if (sessionDeadlines.get(due.sessionId()) != due) {
+                // Replaced by a newer deadline
+                continue;
+            }
+            BaseWebSession session = sessionMap.get(due.sessionId());
+            if (session == null) {
+                // Already closed
+                sessionDeadlines.remove(due.sessionId(), due);
+                continue;
+            }
+            long deadline = session.getLastAccessTimeMillis() + maxSessionIdleTime;
+            if (deadline > currentTime) {
+                // Session was accessed after it had been scheduled. The due entry is already polled from the queue.
+                SessionDeadline next = new SessionDeadline(deadline, due.sessionId());
+                if (sessionDeadlines.replace(due.sessionId(), due, next)) {
+                    expirationQueue.add(next);
                 }
+            } else if (sessionMap.remove(due.sessionId(), session)) {
+                sessionDeadlines.remove(due.sessionId(), due);
+                expiredList.add(session);
             }
         }
 
@@ -287,11 +363,21 @@ public class CBSessionManager implements WebAppSessionManager {
         }
     }
 
+    private synchronized void rescheduleAllSessions(long maxSessionIdleTime) {
+        expirationQueue.clear();
+        sessionDeadlines.clear();
+        for (Map.Entry<String, BaseWebSession> entry : sessionMap.entrySet()) {
+            BaseWebSession session = entry.getValue();
+            SessionDeadline deadline = new SessionDeadline(session.getLastAccessTimeMillis() + maxSessionIdleTime, entry.getKey());
+            sessionDeadlines.put(entry.getKey(), deadline);
+            expirationQueue.add(deadline);
+        }
+        scheduledMaxIdleTime = maxSessionIdleTime;
+    }
+
     @Override
     public Collection<BaseWebSession> getAllActiveSessions() {
-        synchronized (sessionMap) {
-            return new ArrayList<>(sessionMap.values());
-        }
+        return new ArrayList<>(sessionMap.values());
     }
 
     @Nullable
@@ -303,29 +389,13 @@ public class CBSessionManager implements WebAppSessionManager {
         if (CommonUtils.isEmpty(smAccessToken)) {
             return null;
         }
-        synchronized (sessionMap) {
-            var tempCredProvider = new SMTokenCredentialProvider(smAccessToken);
-            SMAuthPermissions authPermissions = application.createSecurityController(tempCredProvider).getTokenPermissions();
-            var sessionId = requestInfo.getId() != null ? requestInfo.getId()
-                : authPermissions.getSessionId();
-
-            var existSession = sessionMap.get(sessionId);
+        // Security manager call is done outside any session lock
+        var tempCredProvider = new SMTokenCredentialProvider(smAccessToken);
+        SMAuthPermissions authPermissions = application.createSecurityController(tempCredProvider).getTokenPermissions();
+        var sessionId = requestInfo.getId() != null ? requestInfo.getId()
+            : authPermissions.getSessionId();
 
-            if (existSession instanceof WebHeadlessSession) {
-                var creds = existSession.getUserContext().getActiveUserCredentials();
-                if (creds == null || !smAccessToken.equals(creds.getSmAccessToken())) {
-                    existSession.getUserContext().refresh(
-                        smAccessToken,
-                        null,
-                        authPermissions
-                    );
-                }
-                return (WebHeadlessSession) existSession;
-            }
-            if (existSession != null) {
-                //session exist but it not headless session
-                return null;
-            }
+        var existSession = getOrCreateSession(sessionId, () -> {
             if (!create) {
                 return null;
             }
@@ -338,64 +408,75 @@ public class CBSessionManager implements WebAppSessionManager {
                 null,
                 authPermissions
             );
-            sessionMap.put(sessionId, headlessSession);
+            return headlessSession;
+        });
+
+        if (existSession instanceof WebHeadlessSession headlessSession) {
+            WebUserContext userContext = headlessSession.getUserContext();
+            synchronized (userContext) {
+                var creds = userContext.getActiveUserCredentials();
+                if (creds == null || !smAccessToken.equals(creds.getSmAccessToken())) {
+                    userContext.refresh(
+                        smAccessToken,
+                        null,
+                        authPermissions
+                    );
+                }
+            }
             return headlessSession;
         }
+        //session doesn't exist or it is not headless session
+        return null;
     }
 
     /**
      * Send session state with remaining alive time to all cached session
      */
     public void sendSessionsStates() {
-        synchronized (sessionMap) {
-            sessionMap.values()
-                .parallelStream()
-                .filter(session -> {
-                    if (session instanceof WebSession webSession) {
-                        return webSession.isAuthorizedInSecurityManager();
-                    }
-                    return false;
-                })
-                .forEach(session -> {
-                    try {
-                        session.addSessionEvent(new WSSessionStateEvent(
-                            session.getLastAccessTimeMillis(),
-                            session.getRemainingTime(),
-                            session.isValid(),
-                            ((WebSession) session).isCacheExpired(),
-                            ((WebSession) session).getLocale(),
-                            ((WebSession) session).getActionParameters()));
-                    } catch (Exception e) {
-                        log.error("Failed to refresh session state: " + session.getSessionId(), e);
-                    }
-                });
-        }
+        sessionMap.values()
+            .parallelStream()
+            .filter(session -> {
+                if (session instanceof WebSession webSession) {
+                    return webSession.isAuthorizedInSecurityManager();
+                }
+                return false;
+            })
+            .forEach(session -> {
+                try {
+                    session.addSessionEvent(new WSSessionStateEvent(
+                        session.getLastAccessTimeMillis(),
+                        session.getRemainingTime(),
+                        session.isValid(),
+                        ((WebSession) session).isCacheExpired(),
+                        ((WebSession) session).getLocale(),
+                        ((WebSession) session).getActionParameters()));
+                } catch (Exception e) {
+                    log.error("Failed to refresh session state: " + session.getSessionId(), e);
+                }
+            });
     }
 
     public void closeUserSession(@NotNull WSUserDeletedEvent userDeletedEvent) {
-        synchronized (sessionMap) {
-            for (Iterator<BaseWebSession> iterator = sessionMap.values().iterator(); iterator.hasNext(); ) {
-                var session = iterator.next();
-                if (CommonUtils.equalObjects(session.getUserContext().getUserId(),
-                    userDeletedEvent.getDeletedUserId())) {
-                    if (session instanceof WebHeadlessSession headlessSession) {
-                        headlessSession.addSessionEvent(userDeletedEvent);
-                    }
-                    iterator.remove();
-                    session.close();
+        CBEventMessage userDeletedMessage = new CBEventMessage(userDeletedEvent);
+        for (Iterator<BaseWebSession> iterator = sessionMap.values().iterator(); iterator.hasNext(); ) {
+            var session = iterator.next();
+            if (CommonUtils.equalObjects(session.getUserContext().getUserId(),
+                userDeletedEvent.getDeletedUserId())) {
+                if (session instanceof WebHeadlessSession headlessSession) {
+                    headlessSession.addSessionEvent(userDeletedMessage);
                 }
+                iterator.remove();
+                session.close();
             }
         }
     }
 
     public void closeSessions(@NotNull List<String> smSessionsId) {
-        synchronized (sessionMap) {
-            for (Iterator<BaseWebSession> iterator = sessionMap.values().iterator(); iterator.hasNext(); ) {
-                var session = iterator.next();
-                if (smSessionsId.contains(session.getUserContext().getSmSessionId())) {
-                    iterator.remove();
-                    session.close(false, true);
-                }
+        for (Iterator<BaseWebSession> iterator = sessionMap.values().iterator(); iterator.hasNext(); ) {
+            var session = iterator.next();
+            if (smSessionsId.contains(session.getUserContext().getSmSessionId())) {
+                iterator.remove();
+                session.close(false, true);
             }
         }
     }
@@ -404,12 +485,10 @@ public class CBSessionManager implements WebAppSessionManager {
      * Closes all sessions in session manager.
      */
     public void closeAllSessions(@Nullable String initiatorSessionId) {
-        synchronized (sessionMap) {
-            for (Iterator<BaseWebSession> iterator = sessionMap.values().iterator(); iterator.hasNext(); ) {
-                var session = iterator.next();
-                iterator.remove();
-                session.close(false, !WSWebUtils.isSessionIdEquals(session, initiatorSessionId));
-            }
+        for (Iterator<BaseWebSession> iterator = sessionMap.values().iterator(); iterator.hasNext(); ) {
+            var session = iterator.next();
+            iterator.remove();
+            session.close(false, !WSWebUtils.isSessionIdEquals(session, initiatorSessionId));
         }
     }
 
@@ -418,15 +497,26 @@ public class CBSessionManager implements WebAppSessionManager {
      */
     public WebSession createWebSession(WebHttpRequestInfo requestInfo) throws DBException {
         String id = requestInfo.getId();
-        synchronized (sessionMap) {
-            BaseWebSession baseWebSession = sessionMap.get(id);
-            if (baseWebSession instanceof WebSession) {
-                return (WebSession) baseWebSession;
-            } else {
-                WebSession webSessionImpl = createWebSessionImpl(requestInfo);
-                sessionMap.put(id, webSessionImpl);
-                return webSessionImpl;
-            }
+        BaseWebSession baseWebSession = getOrCreateSession(id, () -> createWebSessionImpl(requestInfo));
+        if (baseWebSession instanceof WebSession webSession) {
+            return webSession;
+        }
+        // Session of another type is registered with the same id, replace it
+        WebSession webSessionImpl = createWebSessionImpl(requestInfo);
+        registerSession(id, webSessionImpl);
+        return webSessionImpl;
+    }
+
+    private record SessionDeadline(long deadline, @NotNull String sessionId) implements Comparable<SessionDeadline> {
+        @Override
+        public int compareTo(@NotNull SessionDeadline other) {
+            return Long.compare(deadline, other.deadline);
         }
     }
+
+    @FunctionalInterface
+    private interface SessionFactory {
+        @Nullable
+        BaseWebSession createSession() throws DBException;
+    }
 }
@@ -36,6 +36,7 @@ import io.cloudbeaver.service.navigator.WebPropertyFilter;
 import io.cloudbeaver.utils.ServletAppUtils;
 import io.cloudbeaver.utils.WebCommonUtils;
 import io.cloudbeaver.utils.WebDataSourceUtils;
+import jakarta.servlet.http.HttpServletRequest;
 import org.jkiss.code.NotNull;
 import org.jkiss.code.Nullable;
 import org.jkiss.dbeaver.DBException;
@@ -102,6 +103,40 @@ public class WebServiceUtils extends WebCommonUtils {
         return WebDataSourceUtils.getGlobalDataSourceRegistry();
     }
 
+    /**
+     * Checks whether client accepts gzip content encoding. Encodings with zero quality are not accepted.
+     */
+    public static boolean isGzipAccepted(@NotNull HttpServletRequest request) {
+        Enumeration<String> encodings = request.getHeaders("Accept-Encoding");
+        while (encodings != null && encodings.hasMoreElements()) {
+            for (String encoding : encodings.nextElement().split(",")) {
+                String[] parts = encoding.split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip") && getQualityValue(parts) > 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns quality value (q parameter) of the header element split by ';'. Missing value means 1, malformed value means 0.
+     */
+    private static double getQualityValue(@NotNull String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String param = parts[i].trim();
+            int eqPos = param.indexOf('=');
+            if (eqPos != -1 && param.substring(0, eqPos).trim().equalsIgnoreCase("q")) {
+                try {
+                    return Double.parseDouble(param.substring(eqPos + 1).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
     public static InputStream openStaticResource(String path) {
         return WebServiceUtils.class.getClassLoader().getResourceAsStream(path);
     }
@@ -16,6 +16,7 @@
  */
 package io.cloudbeaver.server;
 
+import io.cloudbeaver.server.jobs.WebExportFileCleanupJob;
 import io.cloudbeaver.server.websockets.WebSocketPingPongJob;
 import org.eclipse.core.runtime.Plugin;
 import org.jkiss.code.NotNull;
@@ -87,6 +88,7 @@ public abstract class BaseWebPlatform extends BaseServletPlatform {
 
     protected void scheduleServerJobs() {
         new WebSocketPingPongJob(WebAppUtils.getWebPlatform()).scheduleMonitor();
+        new WebExportFileCleanupJob(WebAppUtils.getWebPlatform()).scheduleMonitor();
     }
 
     @Override
@@ -0,0 +1,303 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2024 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.server;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.sql.DBQuotaException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps track of data export files.
+ * Files are deleted when they are not accessed for TTL, when their session is closed
+ * or when session/global disk quotas require space for new files (least recently used files are deleted first).
+ * Exports reserve disk space while they write, so a single export can't exceed quotas before it is registered.
+ */
+public class WebExportFileStore {
+
+    private static final Log log = Log.getLog(WebExportFileStore.class);
+
+    // Resource quotas
+    public static final String QUOTA_PROP_SESSION_SIZE_LIMIT = "dataExportSessionSizeLimit";
+    public static final String QUOTA_PROP_TOTAL_SIZE_LIMIT = "dataExportTotalSizeLimit";
+    public static final String QUOTA_PROP_FILE_TTL = "dataExportFileTtl";
+
+    private static final long DEFAULT_FILE_TTL = TimeUnit.HOURS.toMillis(1);
+    // Reservations grow in steps to avoid quota checks on every written row
+    private static final long RESERVATION_STEP = 1024 * 1024;
+
+    private static final WebExportFileStore INSTANCE = new WebExportFileStore();
+
+    private static class StoredFile {
+        private final Path path;
+        private final String sessionId;
+        private final long size;
+        private volatile long lastAccessTime;
+
+        StoredFile(@NotNull Path path, @NotNull String sessionId, long size) {
+            this.path = path;
+            this.sessionId = sessionId;
+            this.size = size;
+            this.lastAccessTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Disk space reserved by export which is still being written
+     */
+    public class Reservation implements AutoCloseable {
+        private final String sessionId;
+        private volatile long reservedBytes;
+
+        private Reservation(@NotNull String sessionId) {
+            this.sessionId = sessionId;
+        }
+
+        /**
+         * Makes sure that export of the specified size fits in quotas.
+         *
+         * @throws DBQuotaException if quotas are exceeded even after deletion of other files
+         */
+        public void ensureCapacity(long size) throws DBQuotaException {
+            if (size > reservedBytes) {
+                growReservation(this, size);
+            }
+        }
+
+        @Override
+        public void close() {
+            reservations.remove(this);
+        }
+    }
+
+    private final Map<Path, StoredFile> files = new ConcurrentHashMap<>();
+    private final Set<Reservation> reservations = ConcurrentHashMap.newKeySet();
+    private final LongAdder totalBytes = new LongAdder();
+    private final LongAdder evictedFiles = new LongAdder();
+    private final LongAdder evictedBytes = new LongAdder();
+
+    @NotNull
+    public static WebExportFileStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Starts reservation of disk space for new export file of the session.
+     * Reservation must be closed when export is finished.
+     */
+    @NotNull
+    public Reservation reserveSpace(@NotNull String sessionId) {
+        Reservation reservation = new Reservation(sessionId);
+        reservations.add(reservation);
+        return reservation;
+    }
+
+    private synchronized void growReservation(@NotNull Reservation reservation, long size) throws DBQuotaException {
+        Long sessionLimit = getQuota(QUOTA_PROP_SESSION_SIZE_LIMIT);
+        Long totalLimit = getQuota(QUOTA_PROP_TOTAL_SIZE_LIMIT);
+        long newSize = size + RESERVATION_STEP;
+        if (sessionLimit != null) {
+            newSize = Math.max(size, Math.min(newSize, sessionLimit));
+        }
+        if (totalLimit != null) {
+            newSize = Math.max(size, Math.min(newSize, totalLimit));
+        }
+        if (sessionLimit != null) {
+            ensureSpace(reservation.sessionId, reservation, newSize, sessionLimit, QUOTA_PROP_SESSION_SIZE_LIMIT);
+        }
+        if (totalLimit != null) {
+            ensureSpace(null, reservation, newSize, totalLimit, QUOTA_PROP_TOTAL_SIZE_LIMIT);
+        }
+        reservation.reservedBytes = newSize;
+    }
+
+    /**
+     * Registers export file written under reservation. Reservation is released.
+     *
+     * @throws DBQuotaException if file does not fit in quotas, file is deleted in this case
+     */
+    public synchronized void registerFile(@NotNull Reservation reservation, @NotNull Path file) throws DBQuotaException {
+        reservation.close();
+        registerFile(reservation.sessionId, file);
+    }
+
+    /**
+     * Registers new export file. Least recently used files are deleted if quotas are exceeded.
+     *
+     * @throws DBQuotaException if file does not fit in quotas, file is deleted in this case
+     */
+    public synchronized void registerFile(@NotNull String sessionId, @NotNull Path file) throws DBQuotaException {
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (IOException e) {
+            log.debug("Export file '" + file + "' is not accessible: " + e.getMessage());
+            return;
+        }
+        try {
+            Long sessionLimit = getQuota(QUOTA_PROP_SESSION_SIZE_LIMIT);
+            if (sessionLimit != null) {
+                ensureSpace(sessionId, null, size, sessionLimit, QUOTA_PROP_SESSION_SIZE_LIMIT);
+            }
+            Long totalLimit = getQuota(QUOTA_PROP_TOTAL_SIZE_LIMIT);
+            if (totalLimit != null) {
+                ensureSpace(null, null, size, totalLimit, QUOTA_PROP_TOTAL_SIZE_LIMIT);
+            }
+        } catch (DBQuotaException e) {
+            deleteFile(file);
+            throw e;
+        }
+        StoredFile prevFile = files.put(file, new StoredFile(file, sessionId, size));
+        if (prevFile != null) {
+            totalBytes.add(-prevFile.size);
+        }
+        totalBytes.add(size);
+    }
+
+    /**
+     * Deletes least recently used files of the session (or of all sessions) until new file fits the limit.
+     * Space reserved by other running exports can't be freed.
+     */
+    private void ensureSpace(
+        @Nullable String sessionId,
+        @Nullable Reservation ownReservation,
+        long newFileSize,
+        long limit,
+        @NotNull String quotaName
+    ) throws DBQuotaException {
+        List<StoredFile> candidates = new ArrayList<>();
+        long usedBytes = 0;
+        for (StoredFile storedFile : files.values()) {
+            if (sessionId == null || sessionId.equals(storedFile.sessionId)) {
+                candidates.add(storedFile);
+                usedBytes += storedFile.size;
+            }
+        }
+        long reservedBytes = 0;
+        for (Reservation reservation : reservations) {
+            if (reservation != ownReservation && (sessionId == null || sessionId.equals(reservation.sessionId))) {
+                reservedBytes += reservation.reservedBytes;
+            }
+        }
+        if (usedBytes + reservedBytes + newFileSize <= limit) {
+            return;
+        }
+        if (reservedBytes + newFileSize > limit) {
+            throw new DBQuotaException("Data export files quota exceeded", quotaName, limit, reservedBytes + newFileSize);
+        }
+        candidates.sort(Comparator.comparingLong(storedFile -> storedFile.lastAccessTime));
+        for (StoredFile storedFile : candidates) {
+            if (usedBytes + reservedBytes + newFileSize <= limit) {
+                break;
+            }
+            log.debug("Evict export file '" + storedFile.path + "' to free disk space");
+            evictFile(storedFile);
+            usedBytes -= storedFile.size;
+        }
+    }
+
+    /**
+     * Marks file as recently used
+     */
+    public void touchFile(@NotNull Path file) {
+        StoredFile storedFile = files.get(file);
+        if (storedFile != null) {
+            storedFile.lastAccessTime = System.currentTimeMillis();
+        }
+    }
+
+    public void removeFile(@NotNull Path file) {
+        StoredFile storedFile = files.remove(file);
+        if (storedFile != null) {
+            totalBytes.add(-storedFile.size);
+        }
+        deleteFile(file);
+    }
+
+    public void removeSessionFiles(@NotNull String sessionId) {
+        for (StoredFile storedFile : files.values()) {
+            if (sessionId.equals(storedFile.sessionId)) {
+                removeFile(storedFile.path);
+            }
+        }
+    }
+
+    /**
+     * Deletes files which were not accessed for TTL
+     */
+    public void evictExpiredFiles() {
+        Long ttl = getQuota(QUOTA_PROP_FILE_TTL);
+        long expireTime = System.currentTimeMillis() - (ttl == null ? DEFAULT_FILE_TTL : TimeUnit.SECONDS.toMillis(ttl));
+        for (StoredFile storedFile : files.values()) {
+            if (storedFile.lastAccessTime < expireTime) {
+                log.debug("Evict expired export file '" + storedFile.path + "'");
+                evictFile(storedFile);
+            }
+        }
+    }
+
+    private void evictFile(@NotNull StoredFile storedFile) {
+        if (files.remove(storedFile.path, storedFile)) {
+            totalBytes.add(-storedFile.size);
+            evictedFiles.increment();
+            evictedBytes.add(storedFile.size);
+            deleteFile(storedFile.path);
+        }
+    }
+
+    private static void deleteFile(@NotNull Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.error("Error deleting export file " + file.toAbsolutePath(), e);
+        }
+    }
+
+    @Nullable
+    private static Long getQuota(@NotNull String name) {
+        Number quota = WebAppUtils.getWebApplication().getAppConfiguration().getResourceQuota(name);
+        return quota == null ? null : quota.longValue();
+    }
+
+    public long getTotalBytes() {
+        return totalBytes.sum();
+    }
+
+    public int getFileCount() {
+        return files.size();
+    }
+
+    public long getEvictedFileCount() {
+        return evictedFiles.sum();
+    }
+
+    public long getEvictedBytes() {
+        return evictedBytes.sum();
+    }
+}
@@ -19,6 +19,7 @@ package io.cloudbeaver.server.events;
 import io.cloudbeaver.WebSessionProjectImpl;
 import io.cloudbeaver.model.session.BaseWebSession;
 import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.websocket.CBEventMessage;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.websocket.event.datasource.WSDataSourceEvent;
@@ -31,7 +32,11 @@ public class WSDataSourceUpdatedEventHandlerImpl extends WSAbstractProjectEventH
     public static final Log log = Log.getLog(WSDataSourceUpdatedEventHandlerImpl.class);
 
     @Override
-    protected void updateSessionData(@NotNull BaseWebSession activeUserSession, @NotNull WSDataSourceEvent event) {
+    protected void updateSessionData(
+        @NotNull BaseWebSession activeUserSession,
+        @NotNull WSDataSourceEvent event,
+        @NotNull CBEventMessage message
+    ) {
         var sendEvent = true;
         if (activeUserSession instanceof WebSession webSession) {
             WebSessionProjectImpl project = webSession.getProjectById(event.getProjectId());
@@ -45,7 +50,7 @@ public class WSDataSourceUpdatedEventHandlerImpl extends WSAbstractProjectEventH
             );
         }
         if (sendEvent) {
-            activeUserSession.addSessionEvent(event);
+            activeUserSession.addSessionEvent(message);
         }
     }
 }
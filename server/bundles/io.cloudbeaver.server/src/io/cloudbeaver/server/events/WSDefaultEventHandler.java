@@ -18,6 +18,7 @@ package io.cloudbeaver.server.events;
 
 import io.cloudbeaver.model.session.BaseWebSession;
 import io.cloudbeaver.server.WebAppUtils;
+import io.cloudbeaver.websocket.CBEventMessage;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.websocket.WSEventHandler;
@@ -35,6 +36,8 @@ public class WSDefaultEventHandler<EVENT extends WSEvent> implements WSEventHand
         Collection<BaseWebSession> allSessions = WebAppUtils.getWebApplication()
             .getSessionManager()
             .getAllActiveSessions();
+        // Encoded once for sockets of all sessions
+        CBEventMessage message = new CBEventMessage(event);
         for (var activeUserSession : allSessions) {
             if (!isAcceptableInSession(activeUserSession, event)) {
                 log.debug("Cannot handle " + event.getTopicId() + " event '" + event.getId() +
@@ -42,12 +45,16 @@ public class WSDefaultEventHandler<EVENT extends WSEvent> implements WSEventHand
                 continue;
             }
             log.debug(event.getTopicId() + " event '" + event.getId() + "' handled");
-            updateSessionData(activeUserSession, event);
+            updateSessionData(activeUserSession, event, message);
         }
     }
 
-    protected void updateSessionData(@NotNull BaseWebSession activeUserSession, @NotNull EVENT event) {
-        activeUserSession.addSessionEvent(event);
+    protected void updateSessionData(
+        @NotNull BaseWebSession activeUserSession,
+        @NotNull EVENT event,
+        @NotNull CBEventMessage message
+    ) {
+        activeUserSession.addSessionEvent(message);
     }
 
     protected boolean isAcceptableInSession(@NotNull BaseWebSession activeUserSession, @NotNull EVENT event) {
@@ -18,6 +18,8 @@ package io.cloudbeaver.server.events;
 
 import io.cloudbeaver.server.BaseWebPlatform;
 import io.cloudbeaver.server.WebAppUtils;
+import io.cloudbeaver.server.WebExportFileStore;
+import io.cloudbeaver.service.WebChunkedUploadManager;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.runtime.VoidProgressMonitor;
@@ -34,6 +36,8 @@ public class WSDeleteTempFileHandler implements WSEventHandler<WSEventDeleteTemp
     private static final Log log = Log.getLog(WSDeleteTempFileHandler.class);
 
     public void resetTempFolder(String sessionId) {
+        WebExportFileStore.getInstance().removeSessionFiles(sessionId);
+        WebChunkedUploadManager.getInstance().removeSessionUploads(sessionId);
         Path path = WebAppUtils.getWebPlatform()
             .getTempFolder(new VoidProgressMonitor(), BaseWebPlatform.TEMP_FILE_FOLDER)
             .resolve(sessionId);
@@ -18,6 +18,7 @@ package io.cloudbeaver.server.events;
 
 import io.cloudbeaver.model.session.BaseWebSession;
 import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.websocket.CBEventMessage;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.navigator.DBNModel;
@@ -32,7 +33,11 @@ public class WSFolderUpdatedEventHandlerImpl extends WSAbstractProjectEventHandl
     private static final Log log = Log.getLog(WSFolderUpdatedEventHandlerImpl.class);
 
     @Override
-    protected void updateSessionData(@NotNull BaseWebSession activeUserSession, @NotNull WSDatasourceFolderEvent event) {
+    protected void updateSessionData(
+        @NotNull BaseWebSession activeUserSession,
+        @NotNull WSDatasourceFolderEvent event,
+        @NotNull CBEventMessage message
+    ) {
         if (activeUserSession instanceof WebSession webSession) {
             var project = webSession.getProjectById(event.getProjectId());
             if (project == null) {
@@ -47,7 +52,7 @@ public class WSFolderUpdatedEventHandlerImpl extends WSAbstractProjectEventHandl
             }
             navigatorModel.getRoot().getProjectNode(project).getDatabases().refreshChildren();
         }
-        activeUserSession.addSessionEvent(event);
+        activeUserSession.addSessionEvent(message);
     }
 
     @Override
@@ -18,12 +18,17 @@ package io.cloudbeaver.server.events;
 
 import io.cloudbeaver.model.WebServerMessage;
 import io.cloudbeaver.model.session.BaseWebSession;
+import io.cloudbeaver.websocket.CBEventMessage;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.model.websocket.event.WSSessionLogUpdatedEvent;
 
 public class WSLogEventHandler extends WSDefaultEventHandler<WSSessionLogUpdatedEvent> {
 
-    protected void updateSessionData(@NotNull BaseWebSession activeUserSession, @NotNull WSSessionLogUpdatedEvent event) {
+    protected void updateSessionData(
+        @NotNull BaseWebSession activeUserSession,
+        @NotNull WSSessionLogUpdatedEvent event,
+        @NotNull CBEventMessage message
+    ) {
         activeUserSession.addSessionMessage(new WebServerMessage(event.getMessageType(), event.getMessage()));
     }
 
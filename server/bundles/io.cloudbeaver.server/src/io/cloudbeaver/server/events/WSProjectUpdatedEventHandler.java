@@ -17,7 +17,9 @@
 package io.cloudbeaver.server.events;
 
 import io.cloudbeaver.DBWConstants;
+import io.cloudbeaver.model.rm.local.RMAccessibleProjectsCache;
 import io.cloudbeaver.model.session.BaseWebSession;
+import io.cloudbeaver.websocket.CBEventMessage;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.Log;
@@ -28,7 +30,21 @@ public class WSProjectUpdatedEventHandler extends WSAbstractProjectEventHandler<
     private static final Log log = Log.getLog(WSProjectUpdatedEventHandler.class);
 
     @Override
-    protected void updateSessionData(@NotNull BaseWebSession activeUserSession, @NotNull WSProjectUpdateEvent event) {
+    public void handleEvent(@NotNull WSProjectUpdateEvent event) {
+        if (WSProjectUpdateEvent.ADDED.equals(event.getId())) {
+            RMAccessibleProjectsCache.getInstance().invalidateAll();
+        } else {
+            RMAccessibleProjectsCache.getInstance().invalidateProject(event.getProjectId());
+        }
+        super.handleEvent(event);
+    }
+
+    @Override
+    protected void updateSessionData(
+        @NotNull BaseWebSession activeUserSession,
+        @NotNull WSProjectUpdateEvent event,
+        @NotNull CBEventMessage message
+    ) {
         var eventId = event.getId();
         var projectId = event.getProjectId();
         try {
@@ -39,7 +55,7 @@ public class WSProjectUpdatedEventHandler extends WSAbstractProjectEventHandler<
                 activeUserSession.removeSessionProject(projectId);
                 log.info("Project '" + projectId + "' removed from '" + activeUserSession.getSessionId() + "' session");
             }
-            activeUserSession.addSessionEvent(event);
+            activeUserSession.addSessionEvent(message);
         } catch (DBException e) {
             log.warn("Failed to handle project lifecycle event", e);
         }
@@ -0,0 +1,100 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2024 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.server.graphql;
+
+import graphql.ExecutionInput;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import org.jkiss.code.NotNull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of parsed and validated GraphQL documents keyed by query text.
+ * Web UI sends the same set of operations over and over, so parsing and validation is done once per query text.
+ */
+public class GraphQLDocumentCache implements PreparsedDocumentProvider {
+
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final Map<String, PreparsedDocumentEntry> documents;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+
+    public GraphQLDocumentCache(int maxSize) {
+        this.documents = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparsedDocumentEntry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public CompletableFuture<PreparsedDocumentEntry> getDocumentAsync(
+        @NotNull ExecutionInput executionInput,
+        @NotNull Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidateFunction
+    ) {
+        String query = executionInput.getQuery();
+        PreparsedDocumentEntry entry;
+        synchronized (documents) {
+            entry = documents.get(query);
+        }
+        if (entry != null) {
+            hitCount.increment();
+            return CompletableFuture.completedFuture(entry);
+        }
+        missCount.increment();
+        // Parse outside of the lock. Concurrent misses of the same query just parse it twice.
+        entry = parseAndValidateFunction.apply(executionInput);
+        if (!entry.hasErrors()) {
+            synchronized (documents) {
+                documents.put(query, entry);
+            }
+        }
+        return CompletableFuture.completedFuture(entry);
+    }
+
+    public int getSize() {
+        synchronized (documents) {
+            return documents.size();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public void clear() {
+        synchronized (documents) {
+            documents.clear();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GraphQL document cache: size=" + getSize() + ", hits=" + getHitCount() + ", misses=" + getMissCount();
+    }
+}
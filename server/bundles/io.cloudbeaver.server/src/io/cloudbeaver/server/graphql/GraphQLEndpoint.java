@@ -45,14 +45,13 @@ import org.jkiss.dbeaver.model.data.json.JSONUtils;
 import org.jkiss.utils.CommonUtils;
 import org.jkiss.utils.IOUtils;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.io.*;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPOutputStream;
 
 public class GraphQLEndpoint extends HttpServlet {
 
@@ -66,8 +65,18 @@ public class GraphQLEndpoint extends HttpServlet {
 
     private static final String CORE_SCHEMA_FILE_NAME = "schema/schema.graphqls";
     private final GraphQL graphQL;
+    private final GraphQLDocumentCache documentCache = new GraphQLDocumentCache(GraphQLDocumentCache.DEFAULT_MAX_SIZE);
+
+    private static final String HEADER_ACCEPT_ENCODING = "Accept-Encoding";
+    private static final String HEADER_CONTENT_ENCODING = "Content-Encoding";
+    private static final String HEADER_VARY = "Vary";
+    private static final String ENCODING_GZIP = "gzip";
 
     private static final Gson gson = new GsonBuilder()
+        .serializeNulls()
+        .create();
+    // Human-readable responses for devel mode only
+    private static final Gson develGson = new GsonBuilder()
         .serializeNulls()
         .setPrettyPrinting()
         .create();
@@ -82,9 +91,14 @@ public class GraphQLEndpoint extends HttpServlet {
             .instrumentation(new SimplePerformantInstrumentation())
             .queryExecutionStrategy(new WebExecutionStrategy())
             .mutationExecutionStrategy(new WebExecutionStrategy())
+            .preparsedDocumentProvider(documentCache)
             .build();
     }
 
+    public GraphQLDocumentCache getDocumentCache() {
+        return documentCache;
+    }
+
     private GraphQLSchema buildSchema() {
         SchemaParser schemaParser = new SchemaParser();
         TypeDefinitionRegistry parsedSchema = new TypeDefinitionRegistry();
@@ -116,12 +130,19 @@ public class GraphQLEndpoint extends HttpServlet {
         return schemaGenerator.makeExecutableSchema(parsedSchema, bindingContext.buildRuntimeWiring());
     }
 
+    @Override
+    public void destroy() {
+        log.debug(documentCache.toString());
+        documentCache.clear();
+        super.destroy();
+    }
+
     @Override
     protected void doOptions(HttpServletRequest request, HttpServletResponse response) {
         setDevelHeaders(request, response);
     }
 
-    private void setDevelHeaders(HttpServletRequest request, HttpServletResponse response) {
+    private static void setDevelHeaders(HttpServletRequest request, HttpServletResponse response) {
         if (ServletAppUtils.getServletApplication().getServerConfiguration().isDevelMode()) {
             // response.setHeader(HEADER_ACCESS_CONTROL_ALLOW_ORIGIN, "*");
             // response.setHeader(HEADER_ACCESS_CONTROL_ALLOW_HEADERS, "*");
@@ -162,45 +183,85 @@ public class GraphQLEndpoint extends HttpServlet {
             response.sendError(400, error);
             return;
         }
-        String postBody = IOUtils.readToString(request.getReader());
-        JsonElement json = gson.fromJson(postBody, JsonElement.class);
+        JsonElement json;
+        try (Reader reader = request.getReader()) {
+            json = gson.fromJson(reader, JsonElement.class);
+        }
         if (json instanceof JsonArray array) {
-            setDevelHeaders(request, response);
-            response.setContentType(GraphQLConstants.CONTENT_TYPE_JSON_UTF8);
-            response.getWriter().print("[\n");
-
-            int reqCount = 0;
-            for (int i = 0; i < array.size(); i++) {
-                if (reqCount > 0) {
-                    response.getWriter().print(",\n");
+            List<GraphQLRequest> batch = new ArrayList<>(array.size());
+            for (JsonElement item : array) {
+                if (item instanceof JsonObject reqObject) {
+                    batch.add(parseRequest(reqObject));
                 }
-                JsonElement item = array.get(i);
-                if (item instanceof JsonObject) {
-                    executeSingleQuery(request, response, (JsonObject) item);
-                    reqCount++;
+            }
+            try (ResponseOutput output = new ResponseOutput(request, response)) {
+                int reqCount = executeBatch(request, response, output, batch);
+                if (reqCount == 0) {
+                    output.getWriter().write("[\n");
                 }
+                output.getWriter().write("\n]");
             }
-
-            response.getWriter().print("\n]");
         } else if (json instanceof JsonObject reqObject) {
-            executeSingleQuery(request, response, reqObject);
+            GraphQLRequest gqlRequest = parseRequest(reqObject);
+            if (gqlRequest.query() == null) {
+                response.sendError(400, "Query not specified");
+                return;
+            }
+            try (ResponseOutput output = new ResponseOutput(request, response)) {
+                executeQuery(request, response, output, gqlRequest.query(), gqlRequest.variables(), gqlRequest.operationName());
+            }
         } else {
             response.sendError(400, "Bad JSON request");
         }
     }
 
-    private void executeSingleQuery(HttpServletRequest request, HttpServletResponse response, JsonObject reqObject) throws IOException {
+    private GraphQLRequest parseRequest(JsonObject reqObject) {
         JsonElement query = reqObject.get("query");
-        if (query == null) {
-            response.sendError(400, "Query not specified");
-            return;
-        }
         JsonElement varJSON = reqObject.get("variables");
         Map<String, Object> variables = varJSON == null ? null : gson.fromJson(varJSON, JSONUtils.MAP_TYPE_TOKEN);
-
         JsonElement operNameJSON = reqObject.get("operationName");
+        return new GraphQLRequest(
+            query == null || query instanceof JsonNull ? null : query.getAsString(),
+            variables,
+            operNameJSON == null || operNameJSON instanceof JsonNull ? null : operNameJSON.getAsString());
+    }
 
-        executeQuery(request, response, query.getAsString(), variables, operNameJSON == null || operNameJSON instanceof JsonNull ? null : operNameJSON.getAsString());
+    /**
+     * Executes batch elements one by one and writes results in the original order.
+     * Elements are never executed concurrently: queries may have side effects (e.g. authLogin)
+     * and all of them share the same servlet request and response.
+     * Output is opened with the first result, so the first element may still set response headers.
+     *
+     * @return number of written results
+     */
+    private int executeBatch(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        ResponseOutput output,
+        List<GraphQLRequest> batch
+    ) throws IOException {
+        int reqCount = 0;
+        for (GraphQLRequest gqlRequest : batch) {
+            Map<String, Object> resJSON = executeBatchElement(request, response, gqlRequest);
+            output.getWriter().write(reqCount == 0 ? "[\n" : ",\n");
+            // Each element is written as soon as it is executed. No explicit flush here:
+            // response must not be committed while next elements may still set headers (e.g. cookies)
+            writeResult(output, resJSON);
+            reqCount++;
+        }
+        return reqCount;
+    }
+
+    private Map<String, Object> executeBatchElement(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        GraphQLRequest gqlRequest
+    ) {
+        if (gqlRequest.query() == null) {
+            return Map.of("errors", List.of(Map.of("message", "Query not specified")));
+        }
+        return executeQuery(request, response, gqlRequest.query(), gqlRequest.variables(), gqlRequest.operationName())
+            .toSpecification();
     }
 
     @Override
@@ -212,7 +273,9 @@ public class GraphQLEndpoint extends HttpServlet {
         boolean develMode = ServletAppUtils.getServletApplication().getServerConfiguration().isDevelMode();
 
         if (path.contentEquals("/schema.json") && develMode) {
-            executeQuery(request, response, GraphQLConstants.SCHEMA_READ_QUERY, null, null);
+            try (ResponseOutput output = new ResponseOutput(request, response)) {
+                executeQuery(request, response, output, GraphQLConstants.SCHEMA_READ_QUERY, null, null);
+            }
         } else if (path.contentEquals("/console") && develMode) {
             try (InputStream consolePageStream = WebServiceUtils.openStaticResource("static/graphiql/index.html")) {
                 IOUtils.copyStream(consolePageStream, response.getOutputStream());
@@ -220,14 +283,34 @@ public class GraphQLEndpoint extends HttpServlet {
         } else {
             String query = request.getParameter("query");
             if (query != null) {
-                executeQuery(request, response, query, null, request.getParameter("operationName"));
+                try (ResponseOutput output = new ResponseOutput(request, response)) {
+                    executeQuery(request, response, output, query, null, request.getParameter("operationName"));
+                }
             } else {
                 response.sendError(400, "Bad GET request");
             }
         }
     }
 
-    private void executeQuery(HttpServletRequest request, HttpServletResponse response, String query, Map<String, Object> variables, String operationName) throws IOException {
+    private void executeQuery(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        ResponseOutput output,
+        String query,
+        Map<String, Object> variables,
+        String operationName
+    ) throws IOException {
+        ExecutionResult executionResult = executeQuery(request, response, query, variables, operationName);
+        writeResult(output, executionResult.toSpecification());
+    }
+
+    private ExecutionResult executeQuery(
+        HttpServletRequest request,
+        HttpServletResponse response,
+        String query,
+        Map<String, Object> variables,
+        String operationName
+    ) {
         Map<String, Object> mapOfContext =
             Map.of(
                 "request", request,
@@ -259,13 +342,64 @@ public class GraphQLEndpoint extends HttpServlet {
             }
         }
         ExecutionInput executionInput = contextBuilder.build();
-        ExecutionResult executionResult = graphQL.execute(executionInput);
+        return graphQL.execute(executionInput);
+    }
 
-        Map<String, Object> resJSON = executionResult.toSpecification();
-        String resString = gson.toJson(resJSON);
-        setDevelHeaders(request, response);
-        response.setContentType(GraphQLConstants.CONTENT_TYPE_JSON_UTF8);
-        response.getWriter().print(resString);
+    private static void writeResult(ResponseOutput output, Map<String, Object> resJSON) throws IOException {
+        // Serialize directly into the response stream
+        Writer writer = output.getWriter();
+        try {
+            output.getGson().toJson(resJSON, writer);
+        } catch (JsonIOException e) {
+            throw new IOException("Error writing GraphQL response", e);
+        }
+    }
+
+    /**
+     * Response stream of a single HTTP request.
+     * Opened lazily after the first query is executed, because data fetchers may still set response headers.
+     * Response is gzip-compressed if client accepts it.
+     */
+    private static class ResponseOutput implements AutoCloseable {
+        private final HttpServletRequest request;
+        private final HttpServletResponse response;
+        private final boolean develMode;
+        private Writer writer;
+
+        ResponseOutput(HttpServletRequest request, HttpServletResponse response) {
+            this.request = request;
+            this.response = response;
+            this.develMode = ServletAppUtils.getServletApplication().getServerConfiguration().isDevelMode();
+        }
+
+        Gson getGson() {
+            return develMode ? develGson : gson;
+        }
+
+        Writer getWriter() throws IOException {
+            if (writer == null) {
+                setDevelHeaders(request, response);
+                response.setContentType(GraphQLConstants.CONTENT_TYPE_JSON_UTF8);
+                response.addHeader(HEADER_VARY, HEADER_ACCEPT_ENCODING);
+                OutputStream out = response.getOutputStream();
+                if (WebServiceUtils.isGzipAccepted(request)) {
+                    response.setHeader(HEADER_CONTENT_ENCODING, ENCODING_GZIP);
+                    out = new GZIPOutputStream(out);
+                }
+                writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            }
+            return writer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    private record GraphQLRequest(String query, Map<String, Object> variables, String operationName) {
     }
 
     private static class WebExecutionStrategy extends AsyncExecutionStrategy {
@@ -0,0 +1,50 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2024 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.server.jobs;
+
+import io.cloudbeaver.server.WebExportFileStore;
+import io.cloudbeaver.service.WebChunkedUploadManager;
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.app.DBPPlatform;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.model.runtime.PeriodicJob;
+
+import java.time.Duration;
+
+/**
+ * Deletes expired data export files and abandoned uploads
+ */
+public class WebExportFileCleanupJob extends PeriodicJob {
+    private static final Log log = Log.getLog(WebExportFileCleanupJob.class);
+
+    public WebExportFileCleanupJob(@NotNull DBPPlatform platform) {
+        super("Export files cleanup", platform, Duration.ofMinutes(1));
+    }
+
+    @Override
+    protected void doJob(@NotNull DBRProgressMonitor monitor) {
+        try {
+            WebExportFileStore store = WebExportFileStore.getInstance();
+            store.evictExpiredFiles();
+            WebChunkedUploadManager.getInstance().evictAbandonedUploads();
+            log.debug("Export files: " + store.getFileCount() + " (" + store.getTotalBytes() + " bytes)");
+        } catch (Exception e) {
+            log.error("Error deleting expired export files", e);
+        }
+    }
+}
@@ -17,36 +17,184 @@
 package io.cloudbeaver.server.websockets;
 
 import com.google.gson.Gson;
+import io.cloudbeaver.websocket.CBEventMessage;
+import jakarta.websocket.CloseReason;
 import jakarta.websocket.Endpoint;
 import jakarta.websocket.EndpointConfig;
 import jakarta.websocket.Session;
+import org.jkiss.code.NotNull;
 import org.jkiss.code.Nullable;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.websocket.WSUtils;
 import org.jkiss.dbeaver.model.websocket.event.WSEvent;
+import org.jkiss.dbeaver.model.websocket.event.WSSessionLogUpdatedEvent;
+import org.jkiss.dbeaver.model.websocket.event.session.WSSessionStateEvent;
+import org.jkiss.utils.CommonUtils;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Base web socket endpoint.
+ * Events are sent asynchronously: each socket has a bounded outbound queue which is drained with async remote,
+ * so slow clients do not block threads which raise events.
+ */
 public abstract class CBAbstractWebSocket extends Endpoint {
     private static final Log log = Log.getLog(CBAbstractWebSocket.class);
     protected static final Gson gson = WSUtils.clientGson;
 
+    private static final int MAX_OUTBOUND_QUEUE_SIZE = 1000;
+    private static final long CLOSE_TIMEOUT_MS = 5000;
+
+    // Continues sending after async send completion. Tasks never block, so a couple of threads is enough.
+    private static final ScheduledExecutorService sendExecutor = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "WebSocket event sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final LongAdder sentEventCount = new LongAdder();
+    private static final LongAdder coalescedEventCount = new LongAdder();
+    private static final LongAdder droppedEventCount = new LongAdder();
+
     @Nullable
     private Session webSocketSession;
 
+    // Guarded by itself
+    private final Deque<OutboundEvent> outboundQueue = new ArrayDeque<>();
+    private boolean sending;
+    private boolean closeRequested;
+
     @Override
     public void onOpen(Session session, EndpointConfig config) {
         this.webSocketSession = session;
     }
 
+    @Override
+    public void onClose(Session session, CloseReason closeReason) {
+        super.onClose(session, closeReason);
+        synchronized (outboundQueue) {
+            outboundQueue.clear();
+        }
+    }
+
     public void handleEvent(WSEvent event) {
+        handleEvent(new CBEventMessage(event));
+    }
+
+    public void handleEvent(@NotNull CBEventMessage eventMessage) {
         if (!isOpen()) {
             return;
         }
+        WSEvent event = eventMessage.getEvent();
+        String message;
         try {
-            webSocketSession.getBasicRemote().sendText(
-                gson.toJson(event)
-            );
+            // Broadcast events are encoded once for all sockets
+            message = eventMessage.getText();
         } catch (Exception e) {
             handleEventException(e);
+            return;
+        }
+        boolean overflow = false;
+        boolean startSending = false;
+        synchronized (outboundQueue) {
+            if (closeRequested) {
+                return;
+            }
+            if (coalesce(event, message)) {
+                coalescedEventCount.increment();
+            } else if (outboundQueue.size() >= MAX_OUTBOUND_QUEUE_SIZE) {
+                overflow = true;
+            } else {
+                outboundQueue.add(new OutboundEvent(event, message));
+            }
+            if (!overflow && !sending) {
+                sending = true;
+                startSending = true;
+            }
+        }
+        if (overflow) {
+            // Client can't keep up. It will reconnect and reload its state.
+            droppedEventCount.increment();
+            log.warn("Websocket outbound queue overflow (" + MAX_OUTBOUND_QUEUE_SIZE + " events), closing socket");
+            closeSocket(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Outbound queue overflow"));
+            return;
+        }
+        if (startSending) {
+            sendNextEvent();
+        }
+    }
+
+    /**
+     * Replaces pending event which is made redundant by the new one.
+     * Must be called under the queue lock.
+     */
+    private boolean coalesce(@NotNull WSEvent event, @NotNull String message) {
+        if (!(event instanceof WSSessionStateEvent) && !(event instanceof WSSessionLogUpdatedEvent)) {
+            return false;
+        }
+        for (Iterator<OutboundEvent> iter = outboundQueue.iterator(); iter.hasNext(); ) {
+            OutboundEvent pending = iter.next();
+            if (event instanceof WSSessionStateEvent && pending.event() instanceof WSSessionStateEvent) {
+                // Only the latest session state matters
+                iter.remove();
+                outboundQueue.add(new OutboundEvent(event, message));
+                return true;
+            }
+            if (event instanceof WSSessionLogUpdatedEvent logEvent
+                && pending.event() instanceof WSSessionLogUpdatedEvent pendingLogEvent
+                && logEvent.getMessageType() == pendingLogEvent.getMessageType()
+                && CommonUtils.equalObjects(logEvent.getMessage(), pendingLogEvent.getMessage())
+            ) {
+                // The same message is already pending
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sendNextEvent() {
+        OutboundEvent outboundEvent;
+        boolean closeSocket = false;
+        synchronized (outboundQueue) {
+            outboundEvent = outboundQueue.poll();
+            if (outboundEvent == null) {
+                sending = false;
+                closeSocket = closeRequested;
+            }
+        }
+        if (outboundEvent == null) {
+            if (closeSocket) {
+                closeSocket(null);
+            }
+            return;
+        }
+        Session session = webSocketSession;
+        if (session == null || !session.isOpen()) {
+            synchronized (outboundQueue) {
+                outboundQueue.clear();
+                sending = false;
+            }
+            return;
+        }
+        try {
+            session.getAsyncRemote().sendText(outboundEvent.message(), result -> {
+                if (result.isOK()) {
+                    sentEventCount.increment();
+                } else {
+                    handleEventException(result.getException());
+                }
+                // Completion may be reported in the sending thread, continue in executor to keep the stack flat
+                sendExecutor.execute(this::sendNextEvent);
+            });
+        } catch (Exception e) {
+            handleEventException(e);
+            sendExecutor.execute(this::sendNextEvent);
         }
     }
 
@@ -58,10 +206,37 @@ public abstract class CBAbstractWebSocket extends Endpoint {
         log.error("Failed to send websocket message", e);
     }
 
+    /**
+     * Closes socket after the event which is being sent right now (if any) is completed.
+     * Queued events are dropped. If the in-flight send does not complete in time the socket is closed anyway.
+     */
     public void close() {
+        boolean closeNow;
+        synchronized (outboundQueue) {
+            closeRequested = true;
+            droppedEventCount.add(outboundQueue.size());
+            outboundQueue.clear();
+            closeNow = !sending;
+        }
+        if (closeNow) {
+            closeSocket(null);
+        } else {
+            sendExecutor.schedule(() -> closeSocket(null), CLOSE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void closeSocket(@Nullable CloseReason closeReason) {
+        synchronized (outboundQueue) {
+            closeRequested = true;
+            outboundQueue.clear();
+        }
         if (isOpen()) {
             try {
-                getSession().close();
+                if (closeReason == null) {
+                    getSession().close();
+                } else {
+                    getSession().close(closeReason);
+                }
             } catch (Exception e) {
                 log.error("Failed to close websocket", e);
             }
@@ -73,4 +248,27 @@ public abstract class CBAbstractWebSocket extends Endpoint {
         return webSocketSession;
     }
 
+    /**
+     * Number of events waiting to be sent to this socket
+     */
+    public int getOutboundQueueSize() {
+        synchronized (outboundQueue) {
+            return outboundQueue.size();
+        }
+    }
+
+    public static long getSentEventCount() {
+        return sentEventCount.sum();
+    }
+
+    public static long getCoalescedEventCount() {
+        return coalescedEventCount.sum();
+    }
+
+    public static long getDroppedEventCount() {
+        return droppedEventCount.sum();
+    }
+
+    private record OutboundEvent(@NotNull WSEvent event, @NotNull String message) {
+    }
 }
@@ -19,8 +19,10 @@ package io.cloudbeaver.server.websockets;
 import io.cloudbeaver.DBWebException;
 import io.cloudbeaver.model.session.BaseWebSession;
 import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.websocket.CBEventMessage;
 import io.cloudbeaver.websocket.CBWebSessionEventHandler;
 import jakarta.websocket.*;
+import org.jkiss.code.NotNull;
 import org.jkiss.code.Nullable;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.websocket.event.WSClientEvent;
@@ -33,13 +35,20 @@ import org.jkiss.dbeaver.model.websocket.event.session.WSAccessTokenExpiredEvent
 import org.jkiss.dbeaver.model.websocket.event.session.WSSocketConnectedEvent;
 import org.jkiss.utils.CommonUtils;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 
 public class CBEventsWebSocket extends CBAbstractWebSocket implements CBWebSessionEventHandler {
     private static final Log log = Log.getLog(CBEventsWebSocket.class);
 
+    private static final byte[] PING_PAYLOAD = "cb-ping".getBytes(StandardCharsets.UTF_8);
+
     @Nullable
     private BaseWebSession webSession;
+    private volatile int pingBucket = -1;
+    private volatile long pingSentTime;
 
     @Override
     public void onOpen(Session session, EndpointConfig config) {
@@ -56,7 +65,7 @@ public class CBEventsWebSocket extends CBAbstractWebSocket implements CBWebSessi
 
             session.setMaxIdleTimeout(Duration.ofMinutes(5).toMillis());
             session.addMessageHandler(String.class, new FromUserEventHandler());
-            session.addMessageHandler(PongMessage.class, new WebSocketPingPongCallback(webSession));
+            session.addMessageHandler(PongMessage.class, new WebSocketPingPongCallback(webSession, this));
 
             CBJettyWebSocketManager.registerWebSocket(webSession.getSessionId(), this);
         }
@@ -124,14 +133,50 @@ public class CBEventsWebSocket extends CBAbstractWebSocket implements CBWebSessi
         log.debug("Socket Closed: [" + closeReason.getCloseCode() + "] " + closeReason.getReasonPhrase());
         if (webSession != null) {
             this.webSession.removeEventHandler(this);
+            CBJettyWebSocketManager.unregisterWebSocket(webSession.getSessionId(), this);
         }
     }
 
+    void sendPing() throws IOException {
+        Session session = getSession();
+        if (session == null) {
+            return;
+        }
+        pingSentTime = System.nanoTime();
+        session.getAsyncRemote().sendPing(ByteBuffer.wrap(PING_PAYLOAD));
+    }
+
+    void handlePong() {
+        long sentTime = pingSentTime;
+        if (sentTime != 0) {
+            pingSentTime = 0;
+            CBJettyWebSocketManager.registerPongLatency(System.nanoTime() - sentTime);
+        }
+    }
+
+    int getPingBucket() {
+        return pingBucket;
+    }
+
+    void setPingBucket(int pingBucket) {
+        this.pingBucket = pingBucket;
+    }
+
+    @Nullable
+    String getWebSessionId() {
+        return webSession == null ? null : webSession.getSessionId();
+    }
+
     @Override
     public void handleWebSessionEvent(WSEvent event) {
         super.handleEvent(event);
     }
 
+    @Override
+    public void handleWebSessionEvent(@NotNull CBEventMessage message) {
+        super.handleEvent(message);
+    }
+
     @Override
     public void onError(Session session, Throwable thr) {
         if (webSession != null) {
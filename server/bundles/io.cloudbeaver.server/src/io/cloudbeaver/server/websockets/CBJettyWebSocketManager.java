@@ -16,57 +16,166 @@
  */
 package io.cloudbeaver.server.websockets;
 
-import io.cloudbeaver.server.WebAppSessionManager;
-import io.cloudbeaver.server.WebAppUtils;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.Log;
 
-import java.nio.ByteBuffer;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Registry of opened event web sockets.
+ * Sockets are spread over ping buckets with random assignment. Each ping tick pings one bucket,
+ * so keepalive traffic is distributed over the whole ping interval.
+ */
 public class CBJettyWebSocketManager {
     private static final Log log = Log.getLog(CBJettyWebSocketManager.class);
+
+    public static final int PING_BUCKET_COUNT = 12;
+    // Upper bounds of pong latency histogram buckets, the last bucket is unbounded
+    private static final long[] PONG_LATENCY_BOUNDS_MS = {10, 50, 100, 500, 1000, 5000};
+
     private static final Map<String, List<CBEventsWebSocket>> socketBySessionId = new ConcurrentHashMap<>();
+    private static final Set<CBEventsWebSocket>[] pingBuckets = createPingBuckets();
+    private static final AtomicInteger nextPingBucket = new AtomicInteger();
+
+    private static final LongAdder reapedSocketCount = new LongAdder();
+    private static final LongAdder failedPingCount = new LongAdder();
+    private static final LongAdder[] pongLatencyHistogram = createHistogram();
 
     private CBJettyWebSocketManager() {
     }
 
     public static void registerWebSocket(@NotNull String webSessionId, @NotNull CBEventsWebSocket webSocket) {
         socketBySessionId.computeIfAbsent(webSessionId, key -> new CopyOnWriteArrayList<>()).add(webSocket);
+        int bucket = ThreadLocalRandom.current().nextInt(PING_BUCKET_COUNT);
+        webSocket.setPingBucket(bucket);
+        pingBuckets[bucket].add(webSocket);
     }
 
+    /**
+     * Removes socket from the registry. Called when socket is closed.
+     */
+    public static void unregisterWebSocket(@NotNull String webSessionId, @NotNull CBEventsWebSocket webSocket) {
+        socketBySessionId.computeIfPresent(webSessionId, (key, webSockets) -> {
+            webSockets.remove(webSocket);
+            return webSockets.isEmpty() ? null : webSockets;
+        });
+        int bucket = webSocket.getPingBucket();
+        if (bucket >= 0) {
+            pingBuckets[bucket].remove(webSocket);
+        }
+    }
+
+    /**
+     * Total number of events waiting to be sent to all registered sockets
+     */
+    public static long getOutboundQueueSize() {
+        long queueSize = 0;
+        for (List<CBEventsWebSocket> webSockets : socketBySessionId.values()) {
+            for (CBEventsWebSocket webSocket : webSockets) {
+                queueSize += webSocket.getOutboundQueueSize();
+            }
+        }
+        return queueSize;
+    }
+
+    /**
+     * Pings sockets of the next bucket.
+     * Pings are sent with async remote, so slow clients do not block the ping job.
+     */
     public static void sendPing() {
-        //remove expired sessions
-        WebAppSessionManager webSessionManager = WebAppUtils.getWebApplication().getSessionManager();
-        socketBySessionId.entrySet()
-            .removeIf(entry -> {
-                entry.getValue().removeIf(ws -> !ws.isOpen());
-                    return webSessionManager.getSession(entry.getKey()) == null ||
-                        entry.getValue().isEmpty();
-                }
-            );
-
-        socketBySessionId.entrySet()
-            .stream()
-            .parallel()
-            .forEach(
-                entry -> {
-                    var sessionId = entry.getKey();
-                    var webSockets = entry.getValue();
-                    for (CBEventsWebSocket webSocket : webSockets) {
-                        try {
-                            webSocket.getSession().getBasicRemote().sendPing(
-                                ByteBuffer.wrap("cb-ping".getBytes(StandardCharsets.UTF_8))
-                            );
-                        } catch (Exception e) {
-                            log.error("Failed to send ping in web socket: " + sessionId);
-                        }
-                    }
-                }
-            );
+        Set<CBEventsWebSocket> bucket = pingBuckets[Math.floorMod(nextPingBucket.getAndIncrement(), PING_BUCKET_COUNT)];
+        for (CBEventsWebSocket webSocket : bucket) {
+            if (!webSocket.isOpen()) {
+                // Missed close event
+                reapWebSocket(webSocket);
+                reapedSocketCount.increment();
+                continue;
+            }
+            try {
+                webSocket.sendPing();
+            } catch (Exception e) {
+                failedPingCount.increment();
+                log.error("Failed to send ping in web socket: " + webSocket.getWebSessionId());
+            }
+        }
+    }
+
+    private static void reapWebSocket(@NotNull CBEventsWebSocket webSocket) {
+        String webSessionId = webSocket.getWebSessionId();
+        if (webSessionId != null) {
+            unregisterWebSocket(webSessionId, webSocket);
+            return;
+        }
+        // Socket without session, look it up by value
+        for (String sessionId : socketBySessionId.keySet()) {
+            unregisterWebSocket(sessionId, webSocket);
+        }
+        pingBuckets[webSocket.getPingBucket()].remove(webSocket);
+    }
+
+    static void registerPongLatency(long latencyNanos) {
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+        int bucket = 0;
+        while (bucket < PONG_LATENCY_BOUNDS_MS.length && latencyMs > PONG_LATENCY_BOUNDS_MS[bucket]) {
+            bucket++;
+        }
+        pongLatencyHistogram[bucket].increment();
+    }
+
+    public static int getWebSocketCount() {
+        int count = 0;
+        for (Set<CBEventsWebSocket> bucket : pingBuckets) {
+            count += bucket.size();
+        }
+        return count;
+    }
+
+    public static long getReapedSocketCount() {
+        return reapedSocketCount.sum();
+    }
+
+    public static long getFailedPingCount() {
+        return failedPingCount.sum();
+    }
+
+    /**
+     * Pong latency counts. Bucket bounds are returned by {@link #getPongLatencyBoundsMs()},
+     * the last bucket counts latencies above the last bound.
+     */
+    public static long[] getPongLatencyHistogram() {
+        long[] result = new long[pongLatencyHistogram.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = pongLatencyHistogram[i].sum();
+        }
+        return result;
+    }
+
+    public static long[] getPongLatencyBoundsMs() {
+        return PONG_LATENCY_BOUNDS_MS.clone();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<CBEventsWebSocket>[] createPingBuckets() {
+        Set<CBEventsWebSocket>[] buckets = new Set[PING_BUCKET_COUNT];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = ConcurrentHashMap.newKeySet();
+        }
+        return buckets;
+    }
+
+    private static LongAdder[] createHistogram() {
+        LongAdder[] histogram = new LongAdder[PONG_LATENCY_BOUNDS_MS.length + 1];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = new LongAdder();
+        }
+        return histogram;
     }
 }
@@ -25,13 +25,17 @@ import org.jkiss.code.NotNull;
 public class WebSocketPingPongCallback implements MessageHandler.Whole<PongMessage> {
     @NotNull
     private final BaseWebSession webSession;
+    @NotNull
+    private final CBEventsWebSocket webSocket;
 
-    public WebSocketPingPongCallback(@NotNull BaseWebSession webSession) {
+    public WebSocketPingPongCallback(@NotNull BaseWebSession webSession, @NotNull CBEventsWebSocket webSocket) {
         this.webSession = webSession;
+        this.webSocket = webSocket;
     }
 
     @Override
     public void onMessage(PongMessage message) {
+        webSocket.handlePong();
         if (webSession instanceof WebHeadlessSession) {
             webSession.touchSession();
         }
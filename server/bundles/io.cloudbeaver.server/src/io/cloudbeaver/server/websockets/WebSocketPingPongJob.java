@@ -26,7 +26,9 @@ import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
  * WebSessionMonitorJob
  */
 public class WebSocketPingPongJob extends AbstractJob {
-    private static final int INTERVAL = 1000 * 60 * 1; // once per 1 min
+    private static final int PING_INTERVAL = 1000 * 60 * 1; // each socket is pinged once per 1 min
+    // Each run pings one bucket of sockets
+    private static final int INTERVAL = PING_INTERVAL / CBJettyWebSocketManager.PING_BUCKET_COUNT;
     private final BaseWebPlatform platform;
 
     public WebSocketPingPongJob(BaseWebPlatform platform) {
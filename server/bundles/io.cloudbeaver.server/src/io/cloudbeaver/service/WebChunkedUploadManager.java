@@ -0,0 +1,425 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2024 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service;
+
+import com.google.gson.stream.JsonWriter;
+import io.cloudbeaver.DBWebException;
+import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.server.BaseWebPlatform;
+import io.cloudbeaver.server.CBConstants;
+import io.cloudbeaver.server.WebAppUtils;
+import io.cloudbeaver.server.WebExportFileStore;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.data.json.JSONUtils;
+import org.jkiss.dbeaver.model.sql.DBQuotaException;
+import org.jkiss.utils.CommonUtils;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunked resumable file uploads.
+ * <p>
+ * Protocol (request parameters):
+ * <ul>
+ *     <li>POST {@code upload=start&size=N} - starts new upload, returns upload id</li>
+ *     <li>PUT {@code uploadId=ID&offset=N} - writes request body at the given offset. Chunks may be sent in parallel</li>
+ *     <li>GET {@code uploadId=ID} - returns received byte ranges, so interrupted upload may be resumed</li>
+ *     <li>POST {@code uploadId=ID&upload=commit&sha256=HEX} - verifies assembled file, the servlet then consumes it</li>
+ * </ul>
+ * Upload files reserve their full size in data export session and total disk quotas until they are committed or deleted.
+ */
+public class WebChunkedUploadManager {
+
+    private static final Log log = Log.getLog(WebChunkedUploadManager.class);
+
+    public static final String QUOTA_PROP_UPLOAD_SIZE_LIMIT = "uploadFileSizeLimit";
+
+    public static final String PARAM_UPLOAD = "upload";
+    public static final String PARAM_UPLOAD_ID = "uploadId";
+    public static final String PARAM_SIZE = "size";
+    public static final String PARAM_OFFSET = "offset";
+    public static final String PARAM_SHA256 = "sha256";
+
+    private static final String UPLOAD_START = "start";
+    private static final String UPLOAD_COMMIT = "commit";
+    private static final String UPLOADS_FOLDER = "uploads";
+
+    private static final long UPLOAD_TTL = TimeUnit.HOURS.toMillis(1);
+    private static final int DIGEST_BUFFER_SIZE = 1024 * 1024;
+    private static final int CHUNK_BUFFER_SIZE = 64 * 1024;
+
+    private static final WebChunkedUploadManager INSTANCE = new WebChunkedUploadManager();
+
+    private static class ChunkedUpload {
+        private final String id;
+        private final String sessionId;
+        private final Path file;
+        private final long size;
+        // Preallocated file space is counted in session and total disk quotas
+        private final WebExportFileStore.Reservation reservation;
+        // Received ranges: start -> end (exclusive), adjacent ranges are merged
+        private final TreeMap<Long, Long> receivedRanges = new TreeMap<>();
+        private volatile long lastAccessTime;
+        private boolean committed;
+
+        ChunkedUpload(
+            @NotNull String id,
+            @NotNull String sessionId,
+            @NotNull Path file,
+            long size,
+            @NotNull WebExportFileStore.Reservation reservation
+        ) {
+            this.id = id;
+            this.sessionId = sessionId;
+            this.file = file;
+            this.size = size;
+            this.reservation = reservation;
+            this.lastAccessTime = System.currentTimeMillis();
+        }
+
+        synchronized void addRange(long start, long end) {
+            Map.Entry<Long, Long> prev = receivedRanges.floorEntry(start);
+            if (prev != null && prev.getValue() >= start) {
+                start = prev.getKey();
+                end = Math.max(end, prev.getValue());
+            }
+            Map.Entry<Long, Long> next = receivedRanges.ceilingEntry(start);
+            while (next != null && next.getKey() <= end) {
+                end = Math.max(end, next.getValue());
+                receivedRanges.remove(next.getKey());
+                next = receivedRanges.ceilingEntry(start);
+            }
+            receivedRanges.put(start, end);
+        }
+
+        synchronized long getReceivedBytes() {
+            long received = 0;
+            for (Map.Entry<Long, Long> range : receivedRanges.entrySet()) {
+                received += range.getValue() - range.getKey();
+            }
+            return received;
+        }
+
+        synchronized boolean isComplete() {
+            Map.Entry<Long, Long> first = receivedRanges.firstEntry();
+            return size == 0 || (first != null && first.getKey() == 0 && first.getValue() >= size);
+        }
+
+        synchronized List<List<Long>> getRanges() {
+            List<List<Long>> ranges = new ArrayList<>();
+            for (Map.Entry<Long, Long> range : receivedRanges.entrySet()) {
+                ranges.add(List.of(range.getKey(), range.getValue()));
+            }
+            return ranges;
+        }
+    }
+
+    private final Map<String, ChunkedUpload> uploads = new ConcurrentHashMap<>();
+
+    @NotNull
+    public static WebChunkedUploadManager getInstance() {
+        return INSTANCE;
+    }
+
+    public static boolean isCommitRequest(@NotNull HttpServletRequest request) {
+        return "POST".equals(request.getMethod())
+            && UPLOAD_COMMIT.equals(request.getParameter(PARAM_UPLOAD))
+            && request.getParameter(PARAM_UPLOAD_ID) != null;
+    }
+
+    /**
+     * Processes upload start, chunk and status requests.
+     *
+     * @return false if request is not a chunked upload request or if it is a commit request
+     */
+    public boolean processUploadRequest(
+        @NotNull WebSession session,
+        @NotNull HttpServletRequest request,
+        @NotNull HttpServletResponse response
+    ) throws DBWebException, IOException {
+        String uploadAction = request.getParameter(PARAM_UPLOAD);
+        String uploadId = request.getParameter(PARAM_UPLOAD_ID);
+        switch (request.getMethod()) {
+            case "POST":
+                if (UPLOAD_START.equals(uploadAction)) {
+                    Path uploadFolder = WebAppUtils.getWebPlatform()
+                        .getTempFolder(session.getProgressMonitor(), BaseWebPlatform.TEMP_FILE_IMPORT_FOLDER)
+                        .resolve(session.getSessionId())
+                        .resolve(UPLOADS_FOLDER);
+                    String newUploadId = startUpload(
+                        session.getSessionId(), uploadFolder, CommonUtils.toLong(request.getParameter(PARAM_SIZE), -1));
+                    writeStatus(response, getUpload(session.getSessionId(), newUploadId));
+                    return true;
+                }
+                return false;
+            case "PUT":
+                if (uploadId == null) {
+                    throw new DBWebException("Upload ID not specified");
+                }
+                writeChunk(
+                    session.getSessionId(),
+                    uploadId,
+                    CommonUtils.toLong(request.getParameter(PARAM_OFFSET), -1),
+                    request.getContentLengthLong(),
+                    Channels.newChannel(request.getInputStream()));
+                writeStatus(response, getUpload(session.getSessionId(), uploadId));
+                return true;
+            case "GET":
+                if (uploadId == null) {
+                    return false;
+                }
+                writeStatus(response, getUpload(session.getSessionId(), uploadId));
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Verifies that all chunks were received and the checksum matches.
+     * Upload is finished after that, returned file should be moved or deleted by the caller.
+     */
+    @NotNull
+    public Path commitUpload(@NotNull WebSession session, @NotNull HttpServletRequest request) throws DBWebException {
+        return commitUpload(session.getSessionId(), request.getParameter(PARAM_UPLOAD_ID), request.getParameter(PARAM_SHA256));
+    }
+
+    /**
+     * Verifies that all chunks were received and the checksum (SHA-256 in hex) matches.
+     */
+    @NotNull
+    public Path commitUpload(
+        @NotNull String sessionId,
+        @Nullable String uploadId,
+        @Nullable String expectedChecksum
+    ) throws DBWebException {
+        ChunkedUpload upload = getUpload(sessionId, uploadId);
+        if (CommonUtils.isEmpty(expectedChecksum)) {
+            throw new DBWebException("Upload checksum not specified");
+        }
+        synchronized (upload) {
+            if (upload.committed) {
+                throw new DBWebException("Upload '" + upload.id + "' is already committed");
+            }
+            if (!upload.isComplete()) {
+                throw new DBWebException("Upload '" + upload.id + "' is incomplete: "
+                    + upload.getReceivedBytes() + " of " + upload.size + " bytes received");
+            }
+            String checksum;
+            try {
+                checksum = computeChecksum(upload.file);
+            } catch (IOException e) {
+                throw new DBWebException("Error reading uploaded file", e);
+            }
+            if (!checksum.equalsIgnoreCase(expectedChecksum)) {
+                // Some chunk is corrupted, client has to re-upload the whole file
+                removeUpload(upload);
+                throw new DBWebException("Upload '" + upload.id + "' checksum mismatch");
+            }
+            upload.committed = true;
+            uploads.remove(upload.id);
+            // File is consumed by the caller
+            upload.reservation.close();
+        }
+        return upload.file;
+    }
+
+    /**
+     * Starts new upload. Upload file of the full size is created in the specified folder.
+     *
+     * @return upload id
+     */
+    @NotNull
+    public String startUpload(@NotNull String sessionId, @NotNull Path uploadFolder, long size) throws DBWebException {
+        if (size < 0) {
+            throw new DBWebException("Upload size not specified");
+        }
+        Number sizeLimit = WebAppUtils.getWebApplication().getAppConfiguration().getResourceQuota(QUOTA_PROP_UPLOAD_SIZE_LIMIT);
+        if (sizeLimit != null && size > sizeLimit.longValue()) {
+            throw new DBWebException("Upload quota exceeded: file size " + size + " is greater than limit " + sizeLimit
+                + "\n Please increase the resourceQuotas parameter in configuration");
+        }
+        WebExportFileStore.Reservation reservation = WebExportFileStore.getInstance().reserveSpace(sessionId);
+        try {
+            reservation.ensureCapacity(size);
+        } catch (DBQuotaException e) {
+            reservation.close();
+            throw new DBWebException("Upload quota exceeded", e);
+        }
+        String uploadId = UUID.randomUUID().toString();
+        Path file = uploadFolder.resolve(uploadId);
+        try {
+            Files.createDirectories(uploadFolder);
+            // Chunks may come in any order, so the file has its full size from the start
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(size);
+            }
+        } catch (IOException e) {
+            reservation.close();
+            throw new DBWebException("Error creating upload file", e);
+        }
+        uploads.put(uploadId, new ChunkedUpload(uploadId, sessionId, file, size, reservation));
+        return uploadId;
+    }
+
+    /**
+     * Writes chunk at the given offset. Received part of incomplete chunk is kept,
+     * so the client may resend the rest of it.
+     *
+     * @throws DBWebException if chunk is invalid or source ended before chunk length
+     */
+    public void writeChunk(
+        @NotNull String sessionId,
+        @NotNull String uploadId,
+        long offset,
+        long length,
+        @NotNull ReadableByteChannel source
+    ) throws DBWebException {
+        ChunkedUpload upload = getUpload(sessionId, uploadId);
+        if (offset < 0 || length < 0) {
+            throw new DBWebException("Chunk offset and length must be specified");
+        }
+        if (offset + length > upload.size) {
+            throw new DBWebException("Chunk exceeds upload size " + upload.size);
+        }
+        upload.lastAccessTime = System.currentTimeMillis();
+        long position = offset;
+        long end = offset + length;
+        // Each chunk writes through its own channel, positional writes do not interfere
+        try (FileChannel channel = FileChannel.open(upload.file, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(CHUNK_BUFFER_SIZE, Math.max(1, length)));
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), end - position));
+                if (source.read(buffer) < 0) {
+                    break;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+        } catch (IOException e) {
+            throw new DBWebException("Error writing upload chunk", e);
+        } finally {
+            // Received part of interrupted chunk is still usable
+            if (position > offset) {
+                upload.addRange(offset, position);
+            }
+        }
+        if (position < end) {
+            throw new DBWebException("Upload '" + upload.id + "' chunk is incomplete: "
+                + (position - offset) + " of " + length + " bytes received");
+        }
+    }
+
+    /**
+     * Returns received byte ranges as [start, end) pairs
+     */
+    @NotNull
+    public List<List<Long>> getReceivedRanges(@NotNull String sessionId, @NotNull String uploadId) throws DBWebException {
+        return getUpload(sessionId, uploadId).getRanges();
+    }
+
+    @NotNull
+    private ChunkedUpload getUpload(@NotNull String sessionId, @Nullable String uploadId) throws DBWebException {
+        ChunkedUpload upload = uploadId == null ? null : uploads.get(uploadId);
+        if (upload == null || !upload.sessionId.equals(sessionId)) {
+            throw new DBWebException("Upload '" + uploadId + "' not found");
+        }
+        return upload;
+    }
+
+    private void writeStatus(@NotNull HttpServletResponse response, @NotNull ChunkedUpload upload) throws IOException {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("uploadId", upload.id);
+        status.put("size", upload.size);
+        status.put("received", upload.getReceivedBytes());
+        status.put("ranges", upload.getRanges());
+        response.setContentType(CBConstants.APPLICATION_JSON);
+        try (JsonWriter writer = new JsonWriter(response.getWriter())) {
+            JSONUtils.serializeMap(writer, status);
+        }
+    }
+
+    @NotNull
+    private static String computeChecksum(@NotNull Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(DIGEST_BUFFER_SIZE);
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void removeUpload(@NotNull ChunkedUpload upload) {
+        uploads.remove(upload.id);
+        upload.reservation.close();
+        try {
+            Files.deleteIfExists(upload.file);
+        } catch (IOException e) {
+            log.error("Error deleting upload file " + upload.file, e);
+        }
+    }
+
+    public void removeSessionUploads(@NotNull String sessionId) {
+        for (ChunkedUpload upload : uploads.values()) {
+            if (sessionId.equals(upload.sessionId)) {
+                removeUpload(upload);
+            }
+        }
+    }
+
+    /**
+     * Deletes uploads which did not receive chunks for a long time
+     */
+    public void evictAbandonedUploads() {
+        long expireTime = System.currentTimeMillis() - UPLOAD_TTL;
+        for (ChunkedUpload upload : uploads.values()) {
+            if (upload.lastAccessTime < expireTime) {
+                log.debug("Delete abandoned upload '" + upload.id + "'");
+                removeUpload(upload);
+            }
+        }
+    }
+}
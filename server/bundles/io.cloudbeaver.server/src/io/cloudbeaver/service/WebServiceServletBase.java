@@ -25,19 +25,30 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServlet;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.data.json.JSONUtils;
 
 import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public abstract class WebServiceServletBase extends HttpServlet {
 
     private static final Log log = Log.getLog(WebServiceServletBase.class);
     private static final Type MAP_STRING_OBJECT_TYPE = JSONUtils.MAP_TYPE_TOKEN;
     private static final String REQUEST_PARAM_VARIABLES = "variables";
+    // Only single range requests are supported
+    private static final Pattern BYTE_RANGE_PATTERN = Pattern.compile("bytes=(\\d*)-(\\d*)");
     private static final Gson gson = new GsonBuilder()
         .serializeNulls()
         .setPrettyPrinting()
@@ -73,4 +84,77 @@ public abstract class WebServiceServletBase extends HttpServlet {
     protected Map<String, Object> getVariables(HttpServletRequest request) {
         return gson.fromJson(request.getParameter(REQUEST_PARAM_VARIABLES), MAP_STRING_OBJECT_TYPE);
     }
+
+    /**
+     * Writes file contents to the response.
+     * Supports conditional (If-None-Match) and single byte range (Range, If-Range) requests,
+     * so interrupted downloads may be resumed.
+     * Content type and disposition headers must be set by the caller.
+     */
+    protected void sendFile(
+        @NotNull HttpServletRequest request,
+        @NotNull HttpServletResponse response,
+        @NotNull Path file
+    ) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long lastModified = Files.getLastModifiedTime(file).toMillis();
+            String eTag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+            response.setHeader("Accept-Ranges", "bytes");
+            response.setHeader("ETag", eTag);
+            response.setDateHeader("Last-Modified", lastModified);
+
+            String ifNoneMatch = request.getHeader("If-None-Match");
+            if (ifNoneMatch != null && (ifNoneMatch.equals("*") || ifNoneMatch.contains(eTag))) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+
+            long start = 0;
+            long end = size - 1;
+            String range = request.getHeader("Range");
+            String ifRange = request.getHeader("If-Range");
+            Matcher rangeMatcher = range == null ? null : BYTE_RANGE_PATTERN.matcher(range.trim());
+            if (rangeMatcher != null && rangeMatcher.matches() && (ifRange == null || ifRange.equals(eTag))) {
+                String rangeStart = rangeMatcher.group(1);
+                String rangeEnd = rangeMatcher.group(2);
+                try {
+                    if (rangeStart.isEmpty()) {
+                        // Suffix range: last N bytes
+                        start = Math.max(0, size - Long.parseLong(rangeEnd));
+                    } else {
+                        start = Long.parseLong(rangeStart);
+                        if (!rangeEnd.isEmpty()) {
+                            end = Math.min(end, Long.parseLong(rangeEnd));
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                    start = size;
+                }
+                if (start >= size || start > end) {
+                    response.setHeader("Content-Range", "bytes */" + size);
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader("Content-Range", "bytes " + start + "-" + end + "/" + size);
+            }
+            long length = end - start + 1;
+            response.setContentLengthLong(length);
+            if (length <= 0 || "HEAD".equals(request.getMethod())) {
+                return;
+            }
+
+            // Servlet output is not a file channel, so data is still copied through a user-space buffer
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long transferred = channel.transferTo(position, end - position + 1, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
 }
\ No newline at end of file
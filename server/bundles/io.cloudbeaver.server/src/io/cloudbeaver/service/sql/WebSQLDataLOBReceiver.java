@@ -18,9 +18,10 @@ package io.cloudbeaver.service.sql;
 
 import io.cloudbeaver.server.CBConstants;
 import io.cloudbeaver.server.WebAppUtils;
+import io.cloudbeaver.server.WebExportFileStore;
 import io.cloudbeaver.utils.ServletAppUtils;
+import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.Log;
-import org.jkiss.dbeaver.model.exec.DBCException;
 import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
 import org.jkiss.dbeaver.model.runtime.VoidProgressMonitor;
 import org.jkiss.dbeaver.model.sql.DBQuotaException;
@@ -53,7 +54,7 @@ public class WebSQLDataLOBReceiver extends WebSQLCellValueReceiver {
 
     }
 
-    public String createLobFile(DBRProgressMonitor monitor) throws DBCException, IOException {
+    public String createLobFile(DBRProgressMonitor monitor, String sessionId) throws DBException, IOException {
         String exportFileName = CommonUtils.truncateString(tableName, 32);
         StringBuilder fileName = new StringBuilder(exportFileName);
         fileName.append("_")
@@ -74,7 +75,12 @@ public class WebSQLDataLOBReceiver extends WebSQLCellValueReceiver {
             );
         }
         Path file = WebSQLDataLOBReceiver.DATA_EXPORT_FOLDER.resolve(exportFileName);
-        Files.write(file, binaryValue);
+        // Kept for resumed downloads until session is closed or file expires
+        try (WebExportFileStore.Reservation reservation = WebExportFileStore.getInstance().reserveSpace(sessionId)) {
+            reservation.ensureCapacity(binaryValue.length);
+            Files.write(file, binaryValue);
+            WebExportFileStore.getInstance().registerFile(reservation, file);
+        }
         return exportFileName;
     }
 
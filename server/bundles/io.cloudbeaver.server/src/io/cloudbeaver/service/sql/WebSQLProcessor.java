@@ -321,9 +321,9 @@ public class WebSQLProcessor implements WebSessionProvider {
                     executeInfo.setResults(new WebSQLQueryResults[]{results});
                     setResultFilterText(dataContainer, session.getDataSource(), executeInfo, dataFilter);
                     executeInfo.setFullQuery(statistics.getQueryText());
-                    if (resultSet != null && resultSet.getRows() != null) {
+                    if (resultSet != null) {
                         resultSet.getResultsInfo().setQueryText(statistics.getQueryText());
-                        executeInfo.setStatusMessage(resultSet.getRows().length + " row(s) fetched");
+                        executeInfo.setStatusMessage(resultSet.getRowCount() + " row(s) fetched");
                     }
                 } catch (DBException e) {
                     throw new InvocationTargetException(e);
@@ -904,7 +904,7 @@ public class WebSQLProcessor implements WebSessionProvider {
         WebSQLDataLOBReceiver dataReceiver = new WebSQLDataLOBReceiver(tableName, resultsInfo.getDataContainer(), lobColumnIndex);
         readCellDataValue(monitor, resultsInfo, row, dataReceiver);
         try {
-            return dataReceiver.createLobFile(monitor);
+            return dataReceiver.createLobFile(monitor, webSession.getSessionId());
         } catch (Exception e) {
             throw new DBWebException("Error creating temporary lob file ", e);
         }
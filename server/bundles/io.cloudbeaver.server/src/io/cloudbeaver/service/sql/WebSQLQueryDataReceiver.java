@@ -36,11 +36,33 @@ import org.jkiss.utils.CommonUtils;
 
 import java.lang.reflect.Method;
 import java.util.*;
-import java.util.stream.Collectors;
 
 class WebSQLQueryDataReceiver implements DBDDataReceiver {
     private static final Log log = Log.getLog(WebSQLQueryDataReceiver.class);
 
+    private static final MetaDataAccessor[] NO_META_DATA = new MetaDataAccessor[0];
+
+    /**
+     * {@link MetaData} methods resolved once per value class.
+     * Most value classes do not have any, so lookup ends with an empty array.
+     */
+    private static final ClassValue<MetaDataAccessor[]> META_DATA_ACCESSORS = new ClassValue<>() {
+        @Override
+        protected MetaDataAccessor[] computeValue(Class<?> type) {
+            List<MetaDataAccessor> accessors = null;
+            for (Method method : type.getMethods()) {
+                MetaData metaData = method.getAnnotation(MetaData.class);
+                if (metaData != null) {
+                    if (accessors == null) {
+                        accessors = new ArrayList<>();
+                    }
+                    accessors.add(new MetaDataAccessor(metaData.name(), method));
+                }
+            }
+            return accessors == null ? NO_META_DATA : accessors.toArray(new MetaDataAccessor[0]);
+        }
+    };
+
     private final WebSQLContextInfo contextInfo;
     private final DBSDataContainer dataContainer;
     private final WebDataFormat dataFormat;
@@ -94,15 +116,11 @@ class WebSQLQueryDataReceiver implements DBDDataReceiver {
                     i);
                 row[i] = cellValue;
                 if (cellValue != null) {
-                    Method[] methods = cellValue.getClass().getMethods();
-                    for (Method method : methods) {
-                        if (method.isAnnotationPresent(MetaData.class)) {
-                            if (metaDataMap == null) {
-                                metaDataMap = new HashMap<>();
-                            }
-                            Object value = method.invoke(cellValue);
-                            metaDataMap.put(method.getAnnotation(MetaData.class).name(), value);
+                    for (MetaDataAccessor accessor : META_DATA_ACCESSORS.get(cellValue.getClass())) {
+                        if (metaDataMap == null) {
+                            metaDataMap = new HashMap<>();
                         }
+                        metaDataMap.put(accessor.name(), accessor.method().invoke(cellValue));
                     }
                 }
 
@@ -126,7 +144,7 @@ class WebSQLQueryDataReceiver implements DBDDataReceiver {
         DBSEntity entity = dataContainer instanceof DBSEntity ? (DBSEntity) dataContainer : null;
 
         try {
-            DBExecUtils.bindAttributes(session, entity, resultSet, bindings, rows.stream().map(WebSQLQueryResultSetRow::getData).collect(Collectors.toList()));
+            DBExecUtils.bindAttributes(session, entity, resultSet, bindings, new RowDataList(rows));
         } catch (DBException e) {
             log.error("Error binding attributes", e);
         }
@@ -155,7 +173,8 @@ class WebSQLQueryDataReceiver implements DBDDataReceiver {
         }
 
         webResultSet.setColumns(bindings);
-        webResultSet.setRows(List.of(rows.toArray(new WebSQLQueryResultSetRow[0])));
+        // Rows are handed over as is, receiver drops its reference on close
+        webResultSet.setRows(Collections.unmodifiableList(rows));
         webResultSet.setHasChildrenCollection(resultSet instanceof DBDSubCollectionResultSet);
         webResultSet.setSupportsDataFilter(dataContainer.isFeatureSupported(DBSDataContainer.FEATURE_DATA_FILTER));
         webResultSet.setHasDynamicTrace(trace instanceof DBCTraceDynamic);
@@ -186,7 +205,7 @@ class WebSQLQueryDataReceiver implements DBDDataReceiver {
         // Convert original rows into new rows with leaf attributes
         // Extract values for leaf attributes from original row
         DBDAttributeBinding[] leafAttributes = leafBindings.toArray(new DBDAttributeBinding[0]);
-        List<WebSQLQueryResultSetRow> newRows = new ArrayList<>();
+        List<WebSQLQueryResultSetRow> newRows = new ArrayList<>(rows.size());
         for (WebSQLQueryResultSetRow row : rows) {
             Object[] newRow = new Object[leafBindings.size()];
             for (int i = 0; i < leafBindings.size(); i++) {
@@ -231,6 +250,31 @@ class WebSQLQueryDataReceiver implements DBDDataReceiver {
 
     @Override
     public void close() {
-        rows.clear();
+        // Do not clear rows - they are owned by the result set now
+        rows = new ArrayList<>();
+    }
+
+    private record MetaDataAccessor(String name, Method method) {
+    }
+
+    /**
+     * Read-only view of row values. Avoids copying of the whole page for attributes binding.
+     */
+    private static class RowDataList extends AbstractList<Object[]> implements RandomAccess {
+        private final List<WebSQLQueryResultSetRow> rows;
+
+        RowDataList(List<WebSQLQueryResultSetRow> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public Object[] get(int index) {
+            return rows.get(index).getData();
+        }
+
+        @Override
+        public int size() {
+            return rows.size();
+        }
     }
 }
@@ -77,6 +77,10 @@ public class WebSQLQueryResultSet {
         return rows;
     }
 
+    public int getRowCount() {
+        return rows.size();
+    }
+
     public void setRows(List<WebSQLQueryResultSetRow> rows) {
         this.rows = rows;
     }
@@ -20,6 +20,8 @@ import io.cloudbeaver.DBWebException;
 import io.cloudbeaver.model.app.ServletApplication;
 import io.cloudbeaver.model.session.WebSession;
 import io.cloudbeaver.server.CBConstants;
+import io.cloudbeaver.server.WebExportFileStore;
+import io.cloudbeaver.service.WebChunkedUploadManager;
 import io.cloudbeaver.service.WebServiceServletBase;
 import jakarta.servlet.MultipartConfigElement;
 import jakarta.servlet.ServletException;
@@ -31,10 +33,8 @@ import org.eclipse.jetty.ee10.servlet.ServletContextRequest;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.utils.CommonUtils;
-import org.jkiss.utils.IOUtils;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.UUID;
@@ -68,6 +68,17 @@ public class WebSQLResultServlet extends WebServiceServletBase {
 
     @Override
     protected void processServiceRequest(WebSession session, HttpServletRequest request, HttpServletResponse response) throws DBException, IOException {
+        WebChunkedUploadManager uploadManager = WebChunkedUploadManager.getInstance();
+        if (uploadManager.processUploadRequest(session, request, response)) {
+            return;
+        }
+        if (WebChunkedUploadManager.isCommitRequest(request)) {
+            Path uploadedFile = uploadManager.commitUpload(session, request);
+            String fileName = UUID.randomUUID().toString();
+            Files.move(uploadedFile, WebSQLDataLOBReceiver.DATA_EXPORT_FOLDER.resolve(fileName));
+            response.addHeader("fileName", fileName);
+            return;
+        }
         if (request.getMethod().equals("POST")) {
             try {
                 doPost(request, response);
@@ -84,17 +95,18 @@ public class WebSQLResultServlet extends WebServiceServletBase {
             }
 
             Path dataFile = WebSQLDataLOBReceiver.DATA_EXPORT_FOLDER.resolve(valuePath);
+            if (!Files.exists(dataFile)) {
+                throw new DBWebException("LOB file '" + valuePath + "' not found or expired");
+            }
             session.addInfoMessage("Download LOB file ...");
             response.setHeader("Content-Type", "application/octet-stream");
             response.setHeader("Content-Disposition", "attachment; filename=\"" + dataFile.getFileName().toString() + "\"");
-            response.setHeader("Content-Length", String.valueOf(Files.size(dataFile)));
             response.setDateHeader("Expires", System.currentTimeMillis() + CBConstants.STATIC_CACHE_SECONDS * 1000);
             response.setHeader("Cache-Control", "public, max-age=" + CBConstants.STATIC_CACHE_SECONDS);
 
-            try (InputStream is = Files.newInputStream(dataFile)) {
-                IOUtils.copyStream(is, response.getOutputStream());
-            }
-            Files.deleteIfExists(dataFile);
+            // File is kept until session is closed or file expires, so interrupted download may be resumed
+            WebExportFileStore.getInstance().touchFile(dataFile);
+            sendFile(request, response, dataFile);
         }
     }
 }
\ No newline at end of file
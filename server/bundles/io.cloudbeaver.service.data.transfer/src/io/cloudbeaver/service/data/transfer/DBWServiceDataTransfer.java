@@ -22,13 +22,17 @@ import io.cloudbeaver.model.WebAsyncTaskInfo;
 import io.cloudbeaver.model.session.WebSession;
 import io.cloudbeaver.service.DBWService;
 import io.cloudbeaver.service.data.transfer.impl.WebDataTransferDefaultExportSettings;
+import io.cloudbeaver.service.data.transfer.impl.WebDataTransferImportSettings;
 import io.cloudbeaver.service.data.transfer.impl.WebDataTransferParameters;
 import io.cloudbeaver.service.data.transfer.impl.WebDataTransferStreamProcessor;
 import io.cloudbeaver.service.sql.WebSQLContextInfo;
 import io.cloudbeaver.service.sql.WebSQLProcessor;
 import io.cloudbeaver.service.sql.WebSQLResultsInfo;
 import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.model.struct.DBSDataContainer;
 
+import java.io.OutputStream;
 import java.nio.file.Path;
 import java.util.List;
 
@@ -54,6 +58,7 @@ public interface DBWServiceDataTransfer extends DBWService {
         @NotNull String processorId,
         @NotNull Path path,
         @NotNull WebSQLResultsInfo webSQLResultsInfo,
+        @NotNull WebDataTransferImportSettings importSettings,
         @NotNull WebSession webSession) throws DBWebException;
 
     @WebAction
@@ -65,5 +70,16 @@ public interface DBWServiceDataTransfer extends DBWService {
     @WebAction
     Boolean dataTransferRemoveDataFile(WebSession session, String dataFileId) throws DBWebException;
 
+    /**
+     * Exports data directly to the output stream, export is cancelled if the stream is closed
+     */
+    @WebAction
+    void exportDataToStream(
+        @NotNull WebSession webSession,
+        @NotNull DBSDataContainer dataContainer,
+        @Nullable WebSQLResultsInfo resultsInfo,
+        @NotNull WebDataTransferParameters parameters,
+        @NotNull OutputStream outputStream) throws DBWebException;
+
     WebDataTransferDefaultExportSettings defaultExportSettings();
 }
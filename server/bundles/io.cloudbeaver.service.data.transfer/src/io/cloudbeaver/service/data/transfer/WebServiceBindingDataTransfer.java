@@ -21,6 +21,7 @@ import io.cloudbeaver.service.DBWBindingContext;
 import io.cloudbeaver.service.DBWServiceBindingServlet;
 import io.cloudbeaver.service.DBWServletContext;
 import io.cloudbeaver.service.WebServiceBindingBase;
+import io.cloudbeaver.service.data.transfer.impl.WebDataTransferExportStreamServlet;
 import io.cloudbeaver.service.data.transfer.impl.WebDataTransferParameters;
 import io.cloudbeaver.service.data.transfer.impl.WebDataTransferServlet;
 import io.cloudbeaver.service.data.transfer.impl.WebServiceDataTransfer;
@@ -74,6 +75,11 @@ public class WebServiceBindingDataTransfer extends WebServiceBindingBase<DBWServ
             new WebDataTransferServlet(application, getServiceImpl()),
             application.getServicesURI() + "data/*"
         );
+        servletContext.addServlet(
+            "dataTransferExportStream",
+            new WebDataTransferExportStreamServlet(application, getServiceImpl()),
+            application.getServicesURI() + "data/stream/*"
+        );
         servletContext.addServlet(
                 "dataTransferImport",
                 new WebDataTransferImportServlet(application, getServiceImpl()),
@@ -0,0 +1,184 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2024 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.data.transfer.impl;
+
+import io.cloudbeaver.DBWebException;
+import io.cloudbeaver.WebServiceUtils;
+import io.cloudbeaver.model.WebConnectionInfo;
+import io.cloudbeaver.model.session.WebSession;
+import io.cloudbeaver.server.WebApplication;
+import io.cloudbeaver.service.WebServiceServletBase;
+import io.cloudbeaver.service.data.transfer.DBWServiceDataTransfer;
+import io.cloudbeaver.service.sql.WebSQLContextInfo;
+import io.cloudbeaver.service.sql.WebSQLProcessor;
+import io.cloudbeaver.service.sql.WebSQLResultsInfo;
+import io.cloudbeaver.service.sql.WebServiceBindingSQL;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.data.json.JSONUtils;
+import org.jkiss.dbeaver.model.struct.DBSDataContainer;
+import org.jkiss.dbeaver.tools.transfer.registry.DataTransferProcessorDescriptor;
+import org.jkiss.dbeaver.tools.transfer.registry.DataTransferRegistry;
+import org.jkiss.utils.CommonUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports data directly to the response without intermediate export file download.
+ * Data is exported from the results (contextId, resultsId) or from the container (containerNodePath).
+ */
+public class WebDataTransferExportStreamServlet extends WebServiceServletBase {
+
+    private static final Log log = Log.getLog(WebDataTransferExportStreamServlet.class);
+
+    private final DBWServiceDataTransfer dtManager;
+
+    public WebDataTransferExportStreamServlet(WebApplication application, DBWServiceDataTransfer dtManager) {
+        super(application);
+        this.dtManager = dtManager;
+    }
+
+    @Override
+    protected void processServiceRequest(WebSession session, HttpServletRequest request, HttpServletResponse response) throws DBException, IOException {
+        Map<String, Object> variables = getVariables(request);
+        String projectId = JSONUtils.getString(variables, "projectId");
+        String connectionId = JSONUtils.getString(variables, "connectionId");
+        String contextId = JSONUtils.getString(variables, "contextId");
+        String resultsId = JSONUtils.getString(variables, "resultsId");
+        String containerNodePath = JSONUtils.getString(variables, "containerNodePath");
+        Map<String, Object> parametersMap = JSONUtils.getObject(variables, "parameters");
+        if (projectId == null || connectionId == null || (resultsId == null && containerNodePath == null)) {
+            throw new DBWebException("Missing required parameters");
+        }
+        WebDataTransferParameters parameters = new WebDataTransferParameters(parametersMap);
+        DataTransferProcessorDescriptor processor = DataTransferRegistry.getInstance().getProcessor(parameters.getProcessorId());
+        if (processor == null) {
+            throw new DBWebException("Wrong data processor '" + parameters.getProcessorId() + "'");
+        }
+
+        WebConnectionInfo webConnectionInfo = session.getAccessibleProjectById(projectId).getWebConnectionInfo(connectionId);
+        WebSQLProcessor sqlProcessor = WebServiceBindingSQL.getSQLProcessor(webConnectionInfo);
+        DBSDataContainer dataContainer;
+        WebSQLResultsInfo resultsInfo = null;
+        if (resultsId != null) {
+            WebSQLContextInfo sqlContext = contextId == null ? null : sqlProcessor.getContext(contextId);
+            if (sqlContext == null) {
+                throw new DBWebException("SQL context '" + contextId + "' not found");
+            }
+            resultsInfo = sqlContext.getResults(resultsId);
+            dataContainer = resultsInfo.getDataContainer();
+        } else {
+            dataContainer = sqlProcessor.getDataContainerByNodePath(
+                session.getProgressMonitor(), containerNodePath, DBSDataContainer.class);
+        }
+
+        WebDataTransferOutputSettings outputSettings = parameters.getOutputSettings();
+        String fileName = CommonUtils.isEmpty(outputSettings.getFileName()) ?
+            CommonUtils.escapeFileName(CommonUtils.truncateString(dataContainer.getName(), 32)) :
+            outputSettings.getFileName();
+        fileName += "." + WebDataTransferUtils.getProcessorFileExtension(processor, parameters.getProcessorProperties());
+        fileName = WebDataTransferUtils.normalizeFileName(fileName, outputSettings);
+
+        response.setHeader("Content-Type", processor.getContentType());
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
+        // Zip archives are not compressed again
+        boolean gzip = !outputSettings.isCompress() && WebServiceUtils.isGzipAccepted(request);
+        response.setHeader("Vary", "Accept-Encoding");
+
+        // Response is written in chunks, socket write blocks export when client reads slowly
+        ResponseStream outputStream = new ResponseStream(response, gzip);
+        try {
+            dtManager.exportDataToStream(session, dataContainer, resultsInfo, parameters, outputStream);
+        } catch (DBWebException e) {
+            if (!response.isCommitted()) {
+                // Nothing was sent yet, error is reported as a plain response
+                outputStream.discard();
+                throw e;
+            }
+            // Error cannot be reported after data was sent, client gets truncated response
+            log.error("Data export to stream failed", e);
+            response.getOutputStream().close();
+            return;
+        }
+        outputStream.finish();
+    }
+
+    /**
+     * Response output which is opened with the first written data.
+     * Content encoding is set only when streaming actually begins, so errors reported before it are not gzipped.
+     */
+    private static class ResponseStream extends OutputStream {
+        private final HttpServletResponse response;
+        private final boolean gzip;
+        private OutputStream out;
+
+        ResponseStream(@NotNull HttpServletResponse response, boolean gzip) {
+            this.response = response;
+            this.gzip = gzip;
+        }
+
+        private OutputStream getOut() throws IOException {
+            if (out == null) {
+                if (gzip) {
+                    response.setHeader("Content-Encoding", "gzip");
+                    out = new GZIPOutputStream(response.getOutputStream(), true);
+                } else {
+                    out = response.getOutputStream();
+                }
+            }
+            return out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            getOut().write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            getOut().write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (out != null) {
+                out.flush();
+            }
+        }
+
+        void discard() {
+            if (out != null) {
+                out = null;
+                response.resetBuffer();
+                response.setHeader("Content-Encoding", null);
+            }
+        }
+
+        void finish() throws IOException {
+            // Empty export still produces a valid (empty) gzip stream
+            if (getOut() instanceof GZIPOutputStream gzipStream) {
+                gzipStream.finish();
+            }
+        }
+    }
+}
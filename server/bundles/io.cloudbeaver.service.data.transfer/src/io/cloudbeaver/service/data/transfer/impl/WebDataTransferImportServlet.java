@@ -25,6 +25,7 @@ import io.cloudbeaver.server.BaseWebPlatform;
 import io.cloudbeaver.server.CBConstants;
 import io.cloudbeaver.server.WebAppUtils;
 import io.cloudbeaver.server.WebApplication;
+import io.cloudbeaver.service.WebChunkedUploadManager;
 import io.cloudbeaver.service.WebServiceServletBase;
 import io.cloudbeaver.service.data.transfer.DBWServiceDataTransfer;
 import io.cloudbeaver.service.sql.WebSQLContextInfo;
@@ -71,12 +72,18 @@ public class WebDataTransferImportServlet extends WebServiceServletBase {
             response.sendError(HttpServletResponse.SC_FORBIDDEN, "Import for users only");
             return;
         }
+        WebChunkedUploadManager uploadManager = WebChunkedUploadManager.getInstance();
+        if (uploadManager.processUploadRequest(session, request, response)) {
+            return;
+        }
         if ("POST".equalsIgnoreCase(request.getMethod())) {
             Path tempFolder = WebAppUtils.getWebPlatform().getTempFolder(session.getProgressMonitor(),
                 BaseWebPlatform.TEMP_FILE_IMPORT_FOLDER);
-            MultipartConfigElement MULTI_PART_CONFIG = new MultipartConfigElement(tempFolder.toString());
-
-            request.setAttribute(ECLIPSE_JETTY_MULTIPART_CONFIG, MULTI_PART_CONFIG);
+            boolean chunkedUpload = WebChunkedUploadManager.isCommitRequest(request);
+            if (!chunkedUpload) {
+                MultipartConfigElement MULTI_PART_CONFIG = new MultipartConfigElement(tempFolder.toString());
+                request.setAttribute(ECLIPSE_JETTY_MULTIPART_CONFIG, MULTI_PART_CONFIG);
+            }
 
             Map<String, Object> variables = getVariables(request);
 
@@ -85,6 +92,8 @@ public class WebDataTransferImportServlet extends WebServiceServletBase {
             String contextId = JSONUtils.getString(variables, "contextId");
             String resultId = JSONUtils.getString(variables, "resultsId");
             String processorId = JSONUtils.getString(variables, "processorId");
+            WebDataTransferImportSettings importSettings =
+                new WebDataTransferImportSettings(JSONUtils.getObject(variables, "settings"));
 
             if (projectId == null || connectionId == null || contextId == null || resultId == null || processorId == null) {
                 throw new IllegalArgumentException("Missing required parameters");
@@ -100,17 +109,20 @@ public class WebDataTransferImportServlet extends WebServiceServletBase {
 
             WebSQLResultsInfo webSQLResultsInfo = webSQLContextInfo.getResults(resultId);
             Path filePath;
-
-            try {
-                InputStream file = request.getPart("fileData").getInputStream();
-                filePath = tempFolder.resolve(UUID.randomUUID().toString());
-                Files.write(filePath, file.readAllBytes());
-            } catch (ServletException e) {
-                throw new DBWebException(e.getMessage());
+            if (chunkedUpload) {
+                // All chunks are already on disk and verified
+                filePath = uploadManager.commitUpload(session, request);
+            } else {
+                try (InputStream file = request.getPart("fileData").getInputStream()) {
+                    filePath = tempFolder.resolve(UUID.randomUUID().toString());
+                    Files.copy(file, filePath);
+                } catch (ServletException e) {
+                    throw new DBWebException(e.getMessage());
+                }
             }
 
             WebAsyncTaskInfo asyncImportDataContainer =
-                    dbwServiceDataTransfer.asyncImportDataContainer(processorId, filePath, webSQLResultsInfo, session);
+                    dbwServiceDataTransfer.asyncImportDataContainer(processorId, filePath, webSQLResultsInfo, importSettings, session);
             response.setContentType(CBConstants.APPLICATION_JSON);
             Map<String, Object> parameters = new LinkedHashMap<>();
             parameters.put("id", asyncImportDataContainer.getId());
@@ -0,0 +1,64 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2024 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.data.transfer.impl;
+
+import org.jkiss.dbeaver.model.data.json.JSONUtils;
+import org.jkiss.dbeaver.tools.transfer.database.DatabaseConsumerSettings;
+
+import java.util.Map;
+
+public class WebDataTransferImportSettings {
+    private static final int DEFAULT_COMMIT_AFTER_ROWS = 10_000;
+
+    private final int batchSize;
+    private final int commitAfterRows;
+    private final boolean useBulkLoad;
+
+    public WebDataTransferImportSettings(Map<String, Object> importSettings) {
+        this.batchSize = JSONUtils.getInteger(importSettings, "batchSize", 0);
+        this.commitAfterRows = JSONUtils.getInteger(importSettings, "commitAfterRows", DEFAULT_COMMIT_AFTER_ROWS);
+        this.useBulkLoad = JSONUtils.getBoolean(importSettings, "useBulkLoad", false);
+    }
+
+    /**
+     * Number of rows in one multi-row insert statement, multi-row inserts are not used if it is less than 2
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getCommitAfterRows() {
+        return commitAfterRows;
+    }
+
+    /**
+     * Use native bulk load if it is supported by the driver
+     */
+    public boolean isUseBulkLoad() {
+        return useBulkLoad;
+    }
+
+    void applyTo(DatabaseConsumerSettings consumerSettings) {
+        consumerSettings.setUseTransactions(true);
+        consumerSettings.setCommitAfterRows(Math.max(1, commitAfterRows));
+        if (batchSize > 1) {
+            consumerSettings.setUseMultiRowInsert(true);
+            consumerSettings.setMultiRowInsertBatch(batchSize);
+        }
+        consumerSettings.setUseBulkLoad(useBulkLoad);
+    }
+}
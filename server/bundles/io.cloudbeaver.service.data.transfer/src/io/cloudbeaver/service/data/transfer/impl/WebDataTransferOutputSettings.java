@@ -62,4 +62,8 @@ public class WebDataTransferOutputSettings {
     public String getFileName() {
         return fileName;
     }
+
+    public WebDataTransferOutputSettings withCompress() {
+        return new WebDataTransferOutputSettings(insertBom, encoding, timestampPattern, true, fileName);
+    }
 }
@@ -0,0 +1,433 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2024 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.data.transfer.impl;
+
+import io.cloudbeaver.server.CBApplication;
+import io.cloudbeaver.server.WebExportFileStore;
+import io.cloudbeaver.service.sql.WebSQLResultsInfo;
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.Log;
+import org.jkiss.dbeaver.model.DBPDataKind;
+import org.jkiss.dbeaver.model.DBPEvaluationContext;
+import org.jkiss.dbeaver.model.DBUtils;
+import org.jkiss.dbeaver.model.data.DBDDataFilter;
+import org.jkiss.dbeaver.model.exec.*;
+import org.jkiss.dbeaver.model.impl.AbstractExecutionSource;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.model.sql.DBQuotaException;
+import org.jkiss.dbeaver.model.struct.*;
+import org.jkiss.dbeaver.tools.transfer.IDataTransferConsumer;
+import org.jkiss.dbeaver.tools.transfer.IDataTransferProcessor;
+import org.jkiss.dbeaver.tools.transfer.registry.DataTransferProcessorDescriptor;
+import org.jkiss.dbeaver.tools.transfer.stream.IStreamDataExporter;
+import org.jkiss.dbeaver.tools.transfer.stream.StreamTransferConsumer;
+import org.jkiss.dbeaver.utils.ContentUtils;
+import org.jkiss.utils.CommonUtils;
+import org.jkiss.utils.IOUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Exports data container in partitions by ranges of its unique integer key.
+ * Each row belongs to exactly one key range, so partitions never overlap or skip rows, and no deep OFFSET is used.
+ * Partitions are read concurrently on separate connections, ordered by the key, and encoded into separate files,
+ * which are packed into a zip archive in partition order.
+ * Containers without a single-column non-null integer unique key can't be exported in parallel.
+ */
+class WebDataTransferParallelExporter {
+
+    private static final Log log = Log.getLog(WebDataTransferParallelExporter.class);
+
+    // Producer settings
+    static final String PROP_PARALLEL_THREADS = "parallelThreads";
+    static final String PROP_PARTITION_SIZE = "partitionSize";
+
+    private static final int MAX_PARALLEL_THREADS = 8;
+    private static final long DEFAULT_PARTITION_SIZE = 1_000_000;
+    private static final int FETCH_SIZE = 10_000;
+
+    @NotNull
+    private final DBRProgressMonitor monitor;
+    @NotNull
+    private final DataTransferProcessorDescriptor processor;
+    @NotNull
+    private final DBSDataContainer dataContainer;
+    @NotNull
+    private final WebDataTransferParameters parameters;
+    @Nullable
+    private final DBDDataFilter dataFilter;
+    @Nullable
+    private final Number fileSizeLimit;
+    @NotNull
+    private final WebExportFileStore.Reservation reservation;
+    private final int threadCount;
+    private final long partitionSize;
+
+    private final AtomicLong totalBytesWritten = new AtomicLong();
+    private final AtomicBoolean failed = new AtomicBoolean();
+
+    WebDataTransferParallelExporter(
+        @NotNull DBRProgressMonitor monitor,
+        @NotNull DataTransferProcessorDescriptor processor,
+        @NotNull DBSDataContainer dataContainer,
+        @NotNull WebDataTransferParameters parameters,
+        @Nullable WebSQLResultsInfo resultsInfo,
+        @NotNull WebExportFileStore.Reservation reservation
+    ) {
+        this.monitor = monitor;
+        this.processor = processor;
+        this.dataContainer = dataContainer;
+        this.parameters = parameters;
+        this.dataFilter = parameters.getFilter() == null ? null : parameters.getFilter().makeDataFilter(resultsInfo);
+        this.fileSizeLimit = CBApplication.getInstance().getAppConfiguration()
+            .getResourceQuota(WebServiceDataTransfer.QUOTA_PROP_FILE_LIMIT);
+        this.reservation = reservation;
+        this.threadCount = getThreadCount(parameters);
+        this.partitionSize = Math.max(1, getProducerSetting(parameters, PROP_PARTITION_SIZE, DEFAULT_PARTITION_SIZE));
+    }
+
+    static boolean isParallelExport(@NotNull WebDataTransferParameters parameters) {
+        return getThreadCount(parameters) > 1;
+    }
+
+    private static int getThreadCount(@NotNull WebDataTransferParameters parameters) {
+        return (int) Math.min(MAX_PARALLEL_THREADS, getProducerSetting(parameters, PROP_PARALLEL_THREADS, 1));
+    }
+
+    private static long getProducerSetting(@NotNull WebDataTransferParameters parameters, @NotNull String name, long defaultValue) {
+        Map<String, Object> settings = parameters.getDbProducerSettings();
+        return settings == null ? defaultValue : CommonUtils.toLong(settings.get(name), defaultValue);
+    }
+
+    void exportData(@NotNull Path exportFile, @NotNull Path archiveFile) throws DBException, IOException {
+        DBCExecutionContext defaultContext = DBUtils.getDefaultContext(dataContainer, false);
+        if (defaultContext == null) {
+            throw new DBException("No execution context for '" + dataContainer.getName() + "'");
+        }
+        DBSEntityAttribute keyAttribute = getPartitionKey();
+        String keyName = DBUtils.getQuotedIdentifier(keyAttribute);
+        long rowCount;
+        List<String> keyRanges;
+        try (DBCSession session = defaultContext.openSession(monitor, DBCExecutionPurpose.USER, "Count exported rows")) {
+            rowCount = dataContainer.countData(
+                new AbstractExecutionSource(dataContainer, defaultContext, this),
+                session,
+                dataFilter,
+                DBSDataContainer.FLAG_NONE);
+            int rangeCount = (int) Math.max(1, Math.min(Integer.MAX_VALUE, (rowCount + partitionSize - 1) / partitionSize));
+            keyRanges = makeKeyRanges(session, keyName, rangeCount);
+        }
+        int partCount = keyRanges.size();
+        int workerCount = Math.min(threadCount, partCount);
+        monitor.beginTask("Export " + rowCount + " rows in " + partCount + " parts", partCount);
+
+        List<CompletableFuture<Path>> parts = new ArrayList<>(partCount);
+        for (int i = 0; i < partCount; i++) {
+            parts.add(new CompletableFuture<>());
+        }
+        AtomicInteger nextPart = new AtomicInteger();
+        Path partsFolder = Files.createTempDirectory(exportFile.getParent(), "parts");
+        ExecutorService executor = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "Parallel data export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (int i = 0; i < workerCount; i++) {
+                executor.execute(() -> exportParts(defaultContext, exportFile, partsFolder, keyName, keyRanges, parts, nextPart));
+            }
+            writeArchive(archiveFile, parts);
+        } catch (Exception e) {
+            Files.deleteIfExists(archiveFile);
+            throw e;
+        } finally {
+            failed.set(true);
+            executor.shutdownNow();
+            try {
+                if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    log.warn("Parallel export workers were not stopped");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ContentUtils.deleteFileRecursive(partsFolder);
+        }
+    }
+
+    /**
+     * Finds single-column unique key with non-null integer values. Primary key is preferred.
+     */
+    @NotNull
+    private DBSEntityAttribute getPartitionKey() throws DBException {
+        if (dataContainer instanceof DBSEntity entity) {
+            Collection<? extends DBSEntityConstraint> constraints = entity.getConstraints(monitor);
+            DBSEntityAttribute uniqueKey = null;
+            if (constraints != null) {
+                for (DBSEntityConstraint constraint : constraints) {
+                    if (!constraint.getConstraintType().isUnique() || !(constraint instanceof DBSEntityReferrer referrer)) {
+                        continue;
+                    }
+                    List<? extends DBSEntityAttributeRef> references = referrer.getAttributeReferences(monitor);
+                    if (references == null || references.size() != 1) {
+                        continue;
+                    }
+                    DBSEntityAttribute attribute = references.get(0).getAttribute();
+                    if (attribute == null || !attribute.isRequired() || attribute.getDataKind() != DBPDataKind.NUMERIC) {
+                        continue;
+                    }
+                    if (constraint.getConstraintType() == DBSEntityConstraintType.PRIMARY_KEY) {
+                        return attribute;
+                    }
+                    if (uniqueKey == null) {
+                        uniqueKey = attribute;
+                    }
+                }
+            }
+            if (uniqueKey != null) {
+                return uniqueKey;
+            }
+        }
+        throw new DBException("Parallel export of '" + dataContainer.getName() + "' is not possible: " +
+            "it requires a single-column non-null numeric unique key");
+    }
+
+    /**
+     * Splits key values into ranges of equal width. The first and the last ranges are open,
+     * so rows with keys outside of the current bounds are exported too.
+     *
+     * @return conditions of key ranges
+     */
+    @NotNull
+    private List<String> makeKeyRanges(@NotNull DBCSession session, @NotNull String keyName, int rangeCount) throws DBException {
+        String query = "SELECT MIN(" + keyName + "), MAX(" + keyName + ") FROM " +
+            DBUtils.getObjectFullName(dataContainer, DBPEvaluationContext.DML);
+        Object minValue = null;
+        Object maxValue = null;
+        try (DBCStatement dbStat = session.prepareStatement(DBCStatementType.QUERY, query, false, false, false)) {
+            if (dbStat.executeStatement()) {
+                try (DBCResultSet dbResult = dbStat.openResultSet()) {
+                    if (dbResult.nextRow()) {
+                        minValue = dbResult.getAttributeValue(0);
+                        maxValue = dbResult.getAttributeValue(1);
+                    }
+                }
+            }
+        }
+        BigInteger minKey = toIntegerKey(minValue);
+        BigInteger maxKey = toIntegerKey(maxValue);
+        List<String> ranges = new ArrayList<>(rangeCount);
+        if (minKey == null || maxKey == null || rangeCount == 1) {
+            // Empty container or single part
+            ranges.add(null);
+            return ranges;
+        }
+        BigInteger count = BigInteger.valueOf(rangeCount);
+        BigInteger step = maxKey.subtract(minKey).add(BigInteger.ONE).add(count).subtract(BigInteger.ONE).divide(count);
+        BigInteger lowerBound = null;
+        for (int i = 0; i < rangeCount; i++) {
+            BigInteger upperBound = i == rangeCount - 1 ? null : minKey.add(step.multiply(BigInteger.valueOf(i + 1)));
+            if (upperBound != null && upperBound.compareTo(maxKey) > 0) {
+                upperBound = null;
+            }
+            List<String> conditions = new ArrayList<>(2);
+            if (lowerBound != null) {
+                conditions.add(keyName + " >= " + lowerBound);
+            }
+            if (upperBound != null) {
+                conditions.add(keyName + " < " + upperBound);
+            }
+            ranges.add(conditions.isEmpty() ? null : String.join(" AND ", conditions));
+            if (upperBound == null) {
+                break;
+            }
+            lowerBound = upperBound;
+        }
+        return ranges;
+    }
+
+    @Nullable
+    private static BigInteger toIntegerKey(@Nullable Object value) throws DBException {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(value.toString()).toBigIntegerExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new DBException("Parallel export requires integer key values, got '" + value + "'");
+        }
+    }
+
+    /**
+     * Worker reads parts on its own connection until all parts are taken
+     */
+    private void exportParts(
+        @NotNull DBCExecutionContext defaultContext,
+        @NotNull Path exportFile,
+        @NotNull Path partsFolder,
+        @NotNull String keyName,
+        @NotNull List<String> keyRanges,
+        @NotNull List<CompletableFuture<Path>> parts,
+        @NotNull AtomicInteger nextPart
+    ) {
+        DBCExecutionContext context = null;
+        try {
+            context = DBUtils.getObjectOwnerInstance(dataContainer)
+                .openIsolatedContext(monitor, "Parallel data export", defaultContext);
+            for (int part = nextPart.getAndIncrement(); part < parts.size(); part = nextPart.getAndIncrement()) {
+                if (failed.get() || monitor.isCanceled()) {
+                    parts.get(part).cancel(false);
+                    continue;
+                }
+                try {
+                    parts.get(part).complete(exportPart(context, exportFile, partsFolder, keyName, keyRanges.get(part), part));
+                } catch (Throwable e) {
+                    failed.set(true);
+                    parts.get(part).completeExceptionally(e);
+                }
+            }
+        } catch (Throwable e) {
+            failed.set(true);
+            for (int part = nextPart.getAndIncrement(); part < parts.size(); part = nextPart.getAndIncrement()) {
+                parts.get(part).completeExceptionally(e);
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    @NotNull
+    private Path exportPart(
+        @NotNull DBCExecutionContext context,
+        @NotNull Path exportFile,
+        @NotNull Path partsFolder,
+        @NotNull String keyName,
+        @Nullable String keyRange,
+        int part
+    ) throws DBException {
+        IDataTransferProcessor processorInstance = processor.getInstance();
+        if (!(processorInstance instanceof IStreamDataExporter exporter)) {
+            throw new DBException("Invalid processor. " + IStreamDataExporter.class.getSimpleName() + " expected");
+        }
+        String exportFileName = exportFile.getFileName().toString();
+        String extension = exportFileName.substring(IOUtils.getFileNameWithoutExtension(exportFile).length());
+        Path partFile = partsFolder.resolve(String.format("part-%05d", part + 1) + extension);
+
+        PartConsumer consumer = new PartConsumer();
+        consumer.initTransfer(
+            dataContainer,
+            WebDataTransferUtils.makeConsumerSettings(partFile, parameters.getOutputSettings(), false),
+            new IDataTransferConsumer.TransferParameters(processor.isBinaryFormat(), processor.isHTMLFormat()),
+            exporter,
+            WebDataTransferUtils.makeProcessorProperties(processor, parameters),
+            dataContainer.getDataSource().getContainer().getProject());
+        DBDDataFilter partFilter = dataFilter == null ? new DBDDataFilter() : new DBDDataFilter(dataFilter);
+        if (keyRange != null) {
+            String where = partFilter.getWhere();
+            partFilter.setWhere(CommonUtils.isEmpty(where) ? keyRange : "(" + where + ") AND " + keyRange);
+        }
+        // Rows of the part are exported in key order
+        partFilter.setOrder(keyName);
+        try (DBCSession session = context.openSession(monitor, DBCExecutionPurpose.USER, "Export data part " + (part + 1))) {
+            dataContainer.readData(
+                new AbstractExecutionSource(dataContainer, context, this),
+                session,
+                consumer,
+                partFilter,
+                0,
+                -1,
+                DBSDataContainer.FLAG_NONE,
+                FETCH_SIZE);
+        }
+        consumer.finishTransfer(monitor, false);
+        return partFile;
+    }
+
+    private void writeArchive(@NotNull Path archiveFile, @NotNull List<CompletableFuture<Path>> parts) throws DBException, IOException {
+        try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(archiveFile)))) {
+            for (int i = 0; i < parts.size(); i++) {
+                // Parts are written as soon as they are ready, following parts are exported meanwhile
+                Path partFile = waitForPart(parts.get(i));
+                if (Files.exists(partFile)) {
+                    zip.putNextEntry(new ZipEntry(partFile.getFileName().toString()));
+                    Files.copy(partFile, zip);
+                    zip.closeEntry();
+                    Files.delete(partFile);
+                }
+                monitor.subTask("Exported part " + (i + 1) + " of " + parts.size());
+                monitor.worked(1);
+            }
+        }
+    }
+
+    @NotNull
+    private Path waitForPart(@NotNull CompletableFuture<Path> part) throws DBException {
+        try {
+            return part.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DBException dbException) {
+                throw dbException;
+            }
+            throw new DBException("Error exporting data part", e.getCause());
+        } catch (CancellationException e) {
+            throw new DBException("Data export canceled");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DBException("Data export interrupted");
+        }
+    }
+
+    /**
+     * Quota is checked for all parts together
+     */
+    private class PartConsumer extends StreamTransferConsumer {
+        private long lastBytesWritten;
+
+        @Override
+        public void fetchRow(@NotNull DBCSession session, @NotNull DBCResultSet resultSet) throws DBCException {
+            super.fetchRow(session, resultSet);
+            long bytesWritten = getBytesWritten();
+            long total = totalBytesWritten.addAndGet(bytesWritten - lastBytesWritten);
+            lastBytesWritten = bytesWritten;
+            if (fileSizeLimit != null && total > fileSizeLimit.longValue()) {
+                throw new DBQuotaException(
+                    "Data export quota exceeded \n Please increase the resourceQuotas parameter in configuration",
+                    WebServiceDataTransfer.QUOTA_PROP_FILE_LIMIT, fileSizeLimit.longValue(), total
+                );
+            }
+            reservation.ensureCapacity(total);
+        }
+    }
+}
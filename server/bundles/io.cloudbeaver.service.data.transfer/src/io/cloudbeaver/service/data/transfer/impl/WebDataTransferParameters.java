@@ -75,4 +75,8 @@ public class WebDataTransferParameters {
     public WebDataTransferOutputSettings getOutputSettings() {
         return outputSettings;
     }
+
+    public void setOutputSettings(WebDataTransferOutputSettings outputSettings) {
+        this.outputSettings = outputSettings;
+    }
 }
\ No newline at end of file
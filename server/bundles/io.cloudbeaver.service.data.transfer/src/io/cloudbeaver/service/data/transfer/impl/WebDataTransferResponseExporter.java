@@ -0,0 +1,232 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2024 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.data.transfer.impl;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.DBException;
+import org.jkiss.dbeaver.model.DBPDataSource;
+import org.jkiss.dbeaver.model.DBPNamedObject;
+import org.jkiss.dbeaver.model.data.DBDAttributeBinding;
+import org.jkiss.dbeaver.model.data.DBDContentStorage;
+import org.jkiss.dbeaver.model.data.DBDDisplayFormat;
+import org.jkiss.dbeaver.model.exec.DBCResultSet;
+import org.jkiss.dbeaver.model.exec.DBCSession;
+import org.jkiss.dbeaver.model.runtime.DBRProgressMonitor;
+import org.jkiss.dbeaver.model.struct.DBSObject;
+import org.jkiss.dbeaver.tools.transfer.stream.IStreamDataExporter;
+import org.jkiss.dbeaver.tools.transfer.stream.IStreamDataExporterSite;
+import org.jkiss.dbeaver.tools.transfer.stream.StreamConsumerSettings;
+import org.jkiss.utils.IOUtils;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Exporter which writes the output of another exporter directly to the target stream (e.g. servlet response)
+ * instead of the consumer output file. Rows are still fetched and formatted by the stream transfer consumer.
+ */
+class WebDataTransferResponseExporter implements IStreamDataExporter {
+
+    private static final int LOB_BUFFER_SIZE = 8192;
+
+    private final IStreamDataExporter exporter;
+    private final CountingOutputStream outputStream;
+    private final boolean binaryFormat;
+    private final boolean insertBom;
+    @NotNull
+    private final StreamConsumerSettings.LobEncoding lobEncoding;
+    private PrintWriter writer;
+
+    WebDataTransferResponseExporter(
+        @NotNull IStreamDataExporter exporter,
+        @NotNull OutputStream target,
+        boolean binaryFormat,
+        boolean insertBom,
+        @NotNull StreamConsumerSettings.LobEncoding lobEncoding
+    ) {
+        this.exporter = exporter;
+        this.outputStream = new CountingOutputStream(target);
+        this.binaryFormat = binaryFormat;
+        this.insertBom = insertBom;
+        this.lobEncoding = lobEncoding;
+    }
+
+    long getBytesWritten() {
+        return outputStream.bytesWritten;
+    }
+
+    @Override
+    public void init(IStreamDataExporterSite site) throws DBException {
+        writer = new PrintWriter(new OutputStreamWriter(outputStream, Charset.forName(site.getOutputEncoding())));
+        if (insertBom && !binaryFormat) {
+            writer.write('\uFEFF');
+        }
+        exporter.init(new ResponseSite(site));
+    }
+
+    @Override
+    public void exportHeader(DBCSession session) throws DBException, IOException {
+        exporter.exportHeader(session);
+    }
+
+    @Override
+    public void exportRow(DBCSession session, DBCResultSet resultSet, Object[] row) throws DBException, IOException {
+        exporter.exportRow(session, resultSet, row);
+    }
+
+    @Override
+    public void exportFooter(DBRProgressMonitor monitor) throws DBException, IOException {
+        exporter.exportFooter(monitor);
+        if (writer != null) {
+            writer.flush();
+        }
+        outputStream.flush();
+    }
+
+    @Override
+    public void dispose() {
+        exporter.dispose();
+    }
+
+    private class ResponseSite implements IStreamDataExporterSite {
+        private final IStreamDataExporterSite site;
+
+        ResponseSite(@NotNull IStreamDataExporterSite site) {
+            this.site = site;
+        }
+
+        @Override
+        public DBPNamedObject getSource() {
+            return site.getSource();
+        }
+
+        @Override
+        public DBDDisplayFormat getExportFormat() {
+            return site.getExportFormat();
+        }
+
+        @Override
+        public Map<String, Object> getProperties() {
+            return site.getProperties();
+        }
+
+        @Override
+        public DBDAttributeBinding[] getAttributes() {
+            return site.getAttributes();
+        }
+
+        @Override
+        public OutputStream getOutputStream() {
+            return outputStream;
+        }
+
+        @Override
+        public PrintWriter getWriter() {
+            return writer;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+            outputStream.flush();
+        }
+
+        /**
+         * Encodes LOB the same way as the file consumer does, according to the consumer LOB encoding
+         */
+        @Override
+        public void writeBinaryData(@NotNull DBDContentStorage cs) throws IOException {
+            writer.flush();
+            try (InputStream stream = cs.getContentStream()) {
+                switch (lobEncoding) {
+                    case BASE64 -> {
+                        OutputStream base64Stream = Base64.getEncoder().wrap(new FilterOutputStream(outputStream) {
+                            @Override
+                            public void close() throws IOException {
+                                // Encoder padding is flushed on close, target stream stays open
+                                flush();
+                            }
+                        });
+                        IOUtils.copyStream(stream, base64Stream);
+                        base64Stream.close();
+                    }
+                    case HEX -> {
+                        writer.write("0x");
+                        HexFormat hexFormat = HexFormat.of().withUpperCase();
+                        byte[] buffer = new byte[LOB_BUFFER_SIZE];
+                        for (int count = stream.read(buffer); count > 0; count = stream.read(buffer)) {
+                            writer.write(hexFormat.formatHex(buffer, 0, count));
+                        }
+                        writer.flush();
+                    }
+                    case NATIVE -> {
+                        DBPDataSource dataSource = site.getSource() instanceof DBSObject object ? object.getDataSource() : null;
+                        if (dataSource == null) {
+                            writeRawData(cs, stream);
+                        } else {
+                            byte[] bytes = stream.readAllBytes();
+                            writer.write(dataSource.getSQLDialect().getNativeBinaryFormatter().toString(bytes, 0, bytes.length));
+                            writer.flush();
+                        }
+                    }
+                    default -> writeRawData(cs, stream);
+                }
+            }
+        }
+
+        private void writeRawData(@NotNull DBDContentStorage cs, @NotNull InputStream stream) throws IOException {
+            if (binaryFormat) {
+                IOUtils.copyStream(stream, outputStream);
+            } else {
+                // Text formats get LOB contents as text in content charset
+                String charset = cs.getCharset() == null ? getOutputEncoding() : cs.getCharset();
+                try (Reader reader = new InputStreamReader(stream, charset)) {
+                    IOUtils.copyText(reader, writer);
+                }
+                writer.flush();
+            }
+        }
+
+        @Override
+        public String getOutputEncoding() {
+            return site.getOutputEncoding();
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long bytesWritten;
+
+        CountingOutputStream(@NotNull OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            bytesWritten++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            bytesWritten += len;
+        }
+    }
+}
@@ -19,6 +19,7 @@ package io.cloudbeaver.service.data.transfer.impl;
 import io.cloudbeaver.DBWebException;
 import io.cloudbeaver.model.session.WebSession;
 import io.cloudbeaver.server.WebApplication;
+import io.cloudbeaver.server.WebExportFileStore;
 import io.cloudbeaver.service.WebServiceServletBase;
 import io.cloudbeaver.service.data.transfer.DBWServiceDataTransfer;
 import jakarta.servlet.http.HttpServletRequest;
@@ -28,10 +29,8 @@ import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.tools.transfer.registry.DataTransferProcessorDescriptor;
 import org.jkiss.dbeaver.tools.transfer.registry.DataTransferRegistry;
 import org.jkiss.utils.CommonUtils;
-import org.jkiss.utils.IOUtils;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
@@ -74,19 +73,16 @@ public class WebDataTransferServlet extends WebServiceServletBase {
         }
         fileName = WebDataTransferUtils.normalizeFileName(fileName, taskInfo.getParameters().getOutputSettings());
         Path dataFile = taskInfo.getDataFile();
+        if (!Files.exists(dataFile)) {
+            // Evicted by TTL or disk quota
+            dtConfig.removeTask(taskInfo);
+            throw new DBWebException("Export file '" + dataFileId + "' has expired");
+        }
+        WebExportFileStore.getInstance().touchFile(dataFile);
         session.addInfoMessage("Download data ...");
         response.setHeader("Content-Type", processor.getContentType());
         response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName + "\"");
-        response.setHeader("Content-Length", String.valueOf(Files.size(dataFile)));
-
-        try (InputStream is = Files.newInputStream(dataFile)) {
-            IOUtils.copyStream(is, response.getOutputStream());
-        }
-
-        // TODO: cleanup export files ASAP?
-        if (false) {
-            dtConfig.removeTask(taskInfo);
-        }
+        sendFile(request, response, dataFile);
     }
 
 }
\ No newline at end of file
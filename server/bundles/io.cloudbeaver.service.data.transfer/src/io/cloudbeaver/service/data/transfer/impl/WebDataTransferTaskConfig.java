@@ -16,16 +16,12 @@
  */
 package io.cloudbeaver.service.data.transfer.impl;
 
-import org.jkiss.dbeaver.Log;
+import io.cloudbeaver.server.WebExportFileStore;
 
-import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 
 public class WebDataTransferTaskConfig {
 
-    private static final Log log = Log.getLog(WebDataTransferTaskConfig.class);
-
     private Path dataFile;
     private WebDataTransferParameters parameters;
     private String exportFileName;
@@ -56,10 +52,6 @@ public class WebDataTransferTaskConfig {
     }
 
     public void deleteFile() {
-        try {
-            Files.delete(dataFile);
-        } catch (IOException e) {
-            log.error("Error deleting export file " + dataFile.toAbsolutePath(), e);
-        }
+        WebExportFileStore.getInstance().removeFile(dataFile);
     }
 }
\ No newline at end of file
@@ -21,8 +21,12 @@ import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.Log;
 import org.jkiss.dbeaver.model.preferences.DBPPropertyDescriptor;
 import org.jkiss.dbeaver.tools.transfer.registry.DataTransferProcessorDescriptor;
+import org.jkiss.dbeaver.tools.transfer.stream.StreamConsumerSettings;
 import org.jkiss.utils.CommonUtils;
 
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 class WebDataTransferUtils {
@@ -52,6 +56,46 @@ class WebDataTransferUtils {
         return outputSettings.isCompress() ? fileName + ".zip" : fileName;
     }
 
+    @NotNull
+    public static StreamConsumerSettings makeConsumerSettings(
+        @NotNull Path exportFile,
+        @NotNull WebDataTransferOutputSettings outputSettings,
+        boolean compress
+    ) {
+        StreamConsumerSettings settings = new StreamConsumerSettings();
+
+        settings.setOutputFolder(exportFile.getParent().toAbsolutePath().toString());
+        settings.setOutputFilePattern(exportFile.getFileName().toString());
+
+        settings.setOutputEncodingBOM(outputSettings.isInsertBom());
+        settings.setCompressResults(compress);
+        if (!CommonUtils.isEmpty(outputSettings.getEncoding())) {
+            settings.setOutputEncoding(outputSettings.getEncoding());
+        }
+        if (!CommonUtils.isEmpty(outputSettings.getTimestampPattern())) {
+            settings.setOutputTimestampPattern(outputSettings.getTimestampPattern());
+        }
+        return settings;
+    }
+
+    @NotNull
+    public static Map<String, Object> makeProcessorProperties(
+        @NotNull DataTransferProcessorDescriptor processor,
+        @NotNull WebDataTransferParameters parameters
+    ) {
+        Map<String, Object> properties = new HashMap<>();
+
+        Map<String, Object> processorProperties = parameters.getProcessorProperties();
+        if (processorProperties == null) processorProperties = Collections.emptyMap();
+        for (DBPPropertyDescriptor prop : processor.getProperties()) {
+            Object propValue = processorProperties.get(CommonUtils.toString(prop.getId()));
+            properties.put(prop.getId(), propValue != null ? propValue : prop.getDefaultValue());
+        }
+        // Remove extension property (we specify file name directly)
+        properties.remove(StreamConsumerSettings.PROP_FILE_EXTENSION);
+        return properties;
+    }
+
     public static WebDataTransferSessionConfig getSessionDataTransferConfig(WebSession session) {
         return session.getAttribute("dataTransfer", x -> new WebDataTransferSessionConfig(), WebDataTransferSessionConfig::deleteExportFiles);
     }
@@ -22,6 +22,7 @@ import io.cloudbeaver.model.session.WebAsyncTaskProcessor;
 import io.cloudbeaver.model.session.WebSession;
 import io.cloudbeaver.server.CBApplication;
 import io.cloudbeaver.server.CBPlatform;
+import io.cloudbeaver.server.WebExportFileStore;
 import io.cloudbeaver.service.data.transfer.DBWServiceDataTransfer;
 import io.cloudbeaver.service.sql.WebSQLContextInfo;
 import io.cloudbeaver.service.sql.WebSQLProcessor;
@@ -54,12 +55,15 @@ import org.jkiss.utils.CommonUtils;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.sql.BatchUpdateException;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Web service implementation
@@ -123,15 +127,15 @@ public class WebServiceDataTransfer implements DBWServiceDataTransfer {
 
     @NotNull
     private String makeUniqueFileName(
-            WebSQLProcessor sqlProcessor,
+            WebSession webSession,
             DataTransferProcessorDescriptor processor,
             Map<String, Object> processorProperties
     ) {
         if (processorProperties != null && processorProperties.get(StreamConsumerSettings.PROP_FILE_EXTENSION) != null) {
-            return sqlProcessor.getWebSession().getSessionId() + "_" + UUID.randomUUID() +
+            return webSession.getSessionId() + "_" + UUID.randomUUID() +
                     "." + processorProperties.get(StreamConsumerSettings.PROP_FILE_EXTENSION);
         }
-        return sqlProcessor.getWebSession().getSessionId() + "_" + UUID.randomUUID() + "." + WebDataTransferUtils.getProcessorFileExtension(processor);
+        return webSession.getSessionId() + "_" + UUID.randomUUID() + "." + WebDataTransferUtils.getProcessorFileExtension(processor);
     }
 
     @Override
@@ -152,17 +156,50 @@ public class WebServiceDataTransfer implements DBWServiceDataTransfer {
         if (taskInfo == null) {
             throw new DBWebException("Session task '" + dataFileId + "' not found");
         }
-        Path dataFile = taskInfo.getDataFile();
-        if (dataFile != null) {
+        dtConfig.removeTask(taskInfo);
+
+        return true;
+    }
+
+    @Override
+    public void exportDataToStream(
+        @NotNull WebSession webSession,
+        @NotNull DBSDataContainer dataContainer,
+        @Nullable WebSQLResultsInfo resultsInfo,
+        @NotNull WebDataTransferParameters parameters,
+        @NotNull OutputStream outputStream
+    ) throws DBWebException {
+        DataTransferProcessorDescriptor processor = DataTransferRegistry.getInstance().getProcessor(parameters.getProcessorId());
+        if (processor == null) {
+            throw new DBWebException("Wrong data processor '" + parameters.getProcessorId() + "'");
+        }
+        webSession.addInfoMessage("Export data");
+        Path exportFile = dataExportFolder.resolve(
+            makeUniqueFileName(webSession, processor, parameters.getProcessorProperties()));
+        Path outputFile = exportFile.resolveSibling(WebDataTransferUtils.normalizeFileName(
+            exportFile.getFileName().toString(), parameters.getOutputSettings()));
+        DBRProgressMonitor monitor = webSession.getProgressMonitor();
+        try {
+            if (parameters.getOutputSettings().isCompress()) {
+                ZipOutputStream zipStream = new ZipOutputStream(outputStream);
+                zipStream.putNextEntry(new ZipEntry(exportFile.getFileName().toString()));
+                exportData(monitor, processor, dataContainer, parameters, resultsInfo, exportFile, zipStream, null);
+                zipStream.closeEntry();
+                zipStream.finish();
+            } else {
+                exportData(monitor, processor, dataContainer, parameters, resultsInfo, exportFile, outputStream, null);
+            }
+        } catch (Exception e) {
+            throw new DBWebException("Error exporting data", e);
+        } finally {
+            // Consumer still creates its output file, data itself goes to the stream
             try {
-                Files.delete(dataFile);
+                Files.deleteIfExists(exportFile);
+                Files.deleteIfExists(outputFile);
             } catch (IOException e) {
-                log.warn("Error deleting data file '" + dataFile.toAbsolutePath() + "'", e);
+                log.error("Error deleting export file " + exportFile.toAbsolutePath(), e);
             }
         }
-        dtConfig.removeTask(taskInfo);
-
-        return true;
     }
 
     @Override
@@ -181,10 +218,26 @@ public class WebServiceDataTransfer implements DBWServiceDataTransfer {
                 try {
                     monitor.subTask("Export data using " + processor.getName());
                     Path exportFile = dataExportFolder.resolve(
-                            makeUniqueFileName(sqlProcessor, processor, parameters.getProcessorProperties()));
+                            makeUniqueFileName(sqlProcessor.getWebSession(), processor, parameters.getProcessorProperties()));
+                    boolean parallelExport = WebDataTransferParallelExporter.isParallelExport(parameters);
+                    if (parallelExport) {
+                        // Parts of parallel export are always packed into archive
+                        parameters.setOutputSettings(parameters.getOutputSettings().withCompress());
+                    }
+                    // Disk quotas are checked while data is written
+                    WebExportFileStore.Reservation reservation = WebExportFileStore.getInstance()
+                        .reserveSpace(sqlProcessor.getWebSession().getSessionId());
                     try {
-                        exportData(monitor, processor, dataContainer, parameters, resultsInfo, exportFile);
+                        if (parallelExport) {
+                            Path archiveFile = exportFile.resolveSibling(WebDataTransferUtils.normalizeFileName(
+                                exportFile.getFileName().toString(), parameters.getOutputSettings()));
+                            new WebDataTransferParallelExporter(monitor, processor, dataContainer, parameters, resultsInfo, reservation)
+                                .exportData(exportFile, archiveFile);
+                        } else {
+                            exportData(monitor, processor, dataContainer, parameters, resultsInfo, exportFile, null, reservation);
+                        }
                     } catch (Exception e) {
+                        reservation.close();
                         if (Files.exists(exportFile)) {
                             try {
                                 Files.delete(exportFile);
@@ -202,6 +255,7 @@ public class WebServiceDataTransfer implements DBWServiceDataTransfer {
                         ? exportFile.resolveSibling(WebDataTransferUtils.normalizeFileName(
                             exportFile.getFileName().toString(), outputSettings))
                         : exportFile;
+                    WebExportFileStore.getInstance().registerFile(reservation, finallyExportFile);
                     WebDataTransferTaskConfig taskConfig = new WebDataTransferTaskConfig(finallyExportFile, parameters);
                     String exportFileName = CommonUtils.isEmpty(outputSettings.getFileName()) ?
                         CommonUtils.escapeFileName(CommonUtils.truncateString(dataContainer.getName(), 32)) :
@@ -223,6 +277,7 @@ public class WebServiceDataTransfer implements DBWServiceDataTransfer {
     public WebAsyncTaskInfo asyncImportDataContainer(@NotNull String processorId,
                                                      @NotNull Path path,
                                                      @NotNull WebSQLResultsInfo sqlContext,
+                                                     @NotNull WebDataTransferImportSettings importSettings,
                                                      @NotNull WebSession webSession) throws DBWebException {
         webSession.addInfoMessage("Import data");
         DataTransferProcessorDescriptor processor = DataTransferRegistry.getInstance().getProcessor(processorId);
@@ -235,7 +290,7 @@ public class WebServiceDataTransfer implements DBWServiceDataTransfer {
                 try {
                     monitor.subTask("Import data using " + processor.getName());
                     try {
-                        importData(monitor, processor, (DBSDataManipulator) dataContainer, path);
+                        importData(monitor, processor, (DBSDataManipulator) dataContainer, path, importSettings);
                     } catch (Exception e) {
                         if (e instanceof DBException) {
                             throw e;
@@ -263,55 +318,46 @@ public class WebServiceDataTransfer implements DBWServiceDataTransfer {
         DBSDataContainer dataContainer,
         WebDataTransferParameters parameters,
         WebSQLResultsInfo resultsInfo,
-        Path exportFile) throws DBException, IOException
+        Path exportFile,
+        @Nullable OutputStream targetStream,
+        @Nullable WebExportFileStore.Reservation reservation) throws DBException, IOException
     {
         IDataTransferProcessor processorInstance = processor.getInstance();
         if (!(processorInstance instanceof IStreamDataExporter)) {
             throw new DBException("Invalid processor. " + IStreamDataExporter.class.getSimpleName() + " expected");
         }
         IStreamDataExporter exporter = (IStreamDataExporter) processorInstance;
+        WebDataTransferOutputSettings outputSettings = parameters.getOutputSettings();
+        StreamConsumerSettings settings = WebDataTransferUtils.makeConsumerSettings(
+            exportFile, outputSettings, targetStream == null && outputSettings.isCompress());
+        // Stream export writes exporter output to the target directly, BOM and compression are handled there
+        WebDataTransferResponseExporter responseExporter = targetStream == null ? null : new WebDataTransferResponseExporter(
+            exporter, targetStream, processor.isBinaryFormat(), outputSettings.isInsertBom(), settings.getLobEncoding());
+        if (responseExporter != null) {
+            settings.setOutputEncodingBOM(false);
+        }
 
         Number fileSizeLimit = CBApplication.getInstance().getAppConfiguration().getResourceQuota(QUOTA_PROP_FILE_LIMIT);
 
         StreamTransferConsumer consumer = new StreamTransferConsumer() {
             @Override
             public void fetchRow(@NotNull DBCSession session, @NotNull DBCResultSet resultSet) throws DBCException {
+                // Write errors (e.g. client disconnect) are thrown by the exporter and stop reading data
                 super.fetchRow(session, resultSet);
-                if (fileSizeLimit != null && getBytesWritten() > fileSizeLimit.longValue()) {
+                long bytesWritten = responseExporter == null ? getBytesWritten() : responseExporter.getBytesWritten();
+                if (fileSizeLimit != null && bytesWritten > fileSizeLimit.longValue()) {
                     throw new DBQuotaException(
                         "Data export quota exceeded \n Please increase the resourceQuotas parameter in configuration",
-                        QUOTA_PROP_FILE_LIMIT, fileSizeLimit.longValue(), getBytesWritten()
+                        QUOTA_PROP_FILE_LIMIT, fileSizeLimit.longValue(), bytesWritten
                     );
                 }
+                if (reservation != null) {
+                    reservation.ensureCapacity(bytesWritten);
+                }
             }
         };
 
-        StreamConsumerSettings settings = new StreamConsumerSettings();
-
-        settings.setOutputFolder(exportFile.getParent().toAbsolutePath().toString());
-        settings.setOutputFilePattern(exportFile.getFileName().toString());
-
-        WebDataTransferOutputSettings outputSettings = parameters.getOutputSettings();
-        settings.setOutputEncodingBOM(outputSettings.isInsertBom());
-        settings.setCompressResults(outputSettings.isCompress());
-        if (!CommonUtils.isEmpty(outputSettings.getEncoding())) {
-            settings.setOutputEncoding(outputSettings.getEncoding());
-        }
-        if (!CommonUtils.isEmpty(outputSettings.getTimestampPattern())) {
-            settings.setOutputTimestampPattern(outputSettings.getTimestampPattern());
-        }
-
-        Map<String, Object> properties = new HashMap<>();
-
-        Map<String, Object> processorProperties = parameters.getProcessorProperties();
-        if (processorProperties == null) processorProperties = Collections.emptyMap();
-        for (DBPPropertyDescriptor prop : processor.getProperties()) {
-            Object propValue = processorProperties.get(CommonUtils.toString(prop.getId()));
-            properties.put(prop.getId(), propValue != null ? propValue : prop.getDefaultValue());
-        }
-        // Remove extension property (we specify file name directly)
-        properties.remove(StreamConsumerSettings.PROP_FILE_EXTENSION);
-
+        Map<String, Object> properties = WebDataTransferUtils.makeProcessorProperties(processor, parameters);
 
         DatabaseTransferProducer producer = new DatabaseTransferProducer(
             dataContainer,
@@ -325,7 +371,7 @@ public class WebServiceDataTransfer implements DBWServiceDataTransfer {
             dataContainer,
             settings,
             new IDataTransferConsumer.TransferParameters(processor.isBinaryFormat(), processor.isHTMLFormat()),
-            exporter,
+            responseExporter == null ? exporter : responseExporter,
             properties,
             producer.getProject());
 
@@ -338,16 +384,18 @@ public class WebServiceDataTransfer implements DBWServiceDataTransfer {
             DBRProgressMonitor monitor,
             DataTransferProcessorDescriptor processor,
             @NotNull DBSDataManipulator dataContainer,
-            Path path) throws DBException {
+            Path path,
+            @NotNull WebDataTransferImportSettings importSettings) throws DBException {
         IDataTransferProcessor processorInstance = processor.getInstance();
 
         StreamTransferProducer producer;
         if (dataContainer.getDataSource() != null) {
             producer = new StreamTransferProducer(new StreamEntityMapping(path), processor);
 
-            DatabaseTransferConsumer consumer = new DatabaseTransferConsumer(dataContainer);
+            DatabaseTransferConsumer consumer = new ImportProgressConsumer(dataContainer, monitor);
             DatabaseConsumerSettings databaseConsumerSettings = new DatabaseConsumerSettings();
             databaseConsumerSettings.setContainer((DBSObjectContainer) dataContainer.getDataSource());
+            importSettings.applyTo(databaseConsumerSettings);
             consumer.setSettings(databaseConsumerSettings);
 
             StreamProducerSettings producerSettings = new StreamProducerSettings();
@@ -377,4 +425,33 @@ public class WebServiceDataTransfer implements DBWServiceDataTransfer {
         }
     }
 
+    /**
+     * Reports number of imported rows and import speed to the task monitor
+     */
+    private static class ImportProgressConsumer extends DatabaseTransferConsumer {
+        private static final long PROGRESS_REPORT_INTERVAL = 1000;
+
+        private final DBRProgressMonitor monitor;
+        private final long startTime = System.currentTimeMillis();
+        private long lastReportTime = startTime;
+        private long rowCount;
+
+        ImportProgressConsumer(@NotNull DBSDataManipulator dataContainer, @NotNull DBRProgressMonitor monitor) {
+            super(dataContainer);
+            this.monitor = monitor;
+        }
+
+        @Override
+        public void fetchRow(@NotNull DBCSession session, @NotNull DBCResultSet resultSet) throws DBCException {
+            super.fetchRow(session, resultSet);
+            rowCount++;
+            long currentTime = System.currentTimeMillis();
+            if (currentTime - lastReportTime >= PROGRESS_REPORT_INTERVAL) {
+                lastReportTime = currentTime;
+                long rowsPerSecond = rowCount * 1000 / Math.max(1, currentTime - startTime);
+                monitor.subTask("Imported " + rowCount + " rows (" + rowsPerSecond + " rows/s)");
+            }
+        }
+    }
+
 }
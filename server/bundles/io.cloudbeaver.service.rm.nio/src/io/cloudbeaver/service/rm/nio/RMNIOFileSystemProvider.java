@@ -16,6 +16,7 @@
  */
 package io.cloudbeaver.service.rm.nio;
 
+import io.cloudbeaver.model.rm.RMStreamingController;
 import org.jkiss.code.NotNull;
 import org.jkiss.dbeaver.DBException;
 import org.jkiss.dbeaver.model.nio.NIOFileSystemProvider;
@@ -30,12 +31,15 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.FileAttribute;
 import java.nio.file.attribute.FileAttributeView;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -94,7 +98,7 @@ public class RMNIOFileSystemProvider extends NIOFileSystemProvider {
     }
 
     @Override
-    public RMByteArrayChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs)
+    public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs)
         throws IOException {
         RMPath rmPath = (RMPath) path;
         if (Files.isDirectory(rmPath)) {
@@ -102,6 +106,9 @@ public class RMNIOFileSystemProvider extends NIOFileSystemProvider {
         }
 
         try {
+            if (rmController instanceof RMStreamingController streamingController) {
+                return streamingController.openResourceChannel(rmPath.getRmProjectId(), rmPath.getResourcePath(), options);
+            }
             if (Files.exists(path)) {
                 byte[] data = rmController.getResourceContents(rmPath.getRmProjectId(), rmPath.getResourcePath());
                 return new RMByteArrayChannel(data, rmPath, options);
@@ -115,6 +122,15 @@ public class RMNIOFileSystemProvider extends NIOFileSystemProvider {
 
     @Override
     public OutputStream newOutputStream(Path path, OpenOption... options) throws IOException {
+        if (rmController instanceof RMStreamingController) {
+            Set<OpenOption> channelOptions = new HashSet<>(Arrays.asList(options));
+            if (channelOptions.isEmpty()) {
+                channelOptions.add(StandardOpenOption.CREATE);
+                channelOptions.add(StandardOpenOption.TRUNCATE_EXISTING);
+            }
+            channelOptions.add(StandardOpenOption.WRITE);
+            return Channels.newOutputStream(newByteChannel(path, channelOptions));
+        }
         return new RMOutputStream((RMPath) path);
     }
 
@@ -28,10 +28,14 @@ import io.cloudbeaver.registry.WebAuthProviderDescriptor;
 import io.cloudbeaver.registry.WebAuthProviderRegistry;
 import io.cloudbeaver.registry.WebMetaParametersRegistry;
 import io.cloudbeaver.service.security.bruteforce.BruteForceUtils;
+import io.cloudbeaver.service.security.bruteforce.UserLoginAttemptsTracker;
 import io.cloudbeaver.service.security.bruteforce.UserLoginRecord;
 import io.cloudbeaver.service.security.db.CBDatabase;
 import io.cloudbeaver.service.security.internal.AuthAttemptSessionInfo;
+import io.cloudbeaver.service.security.internal.SMAuthDataPurgeState;
+import io.cloudbeaver.service.security.internal.SMObjectPermissionsIndex;
 import io.cloudbeaver.service.security.internal.SMTokenInfo;
+import io.cloudbeaver.service.security.internal.SMTokenPermissionsCache;
 import org.jkiss.code.NotNull;
 import org.jkiss.code.Nullable;
 import org.jkiss.dbeaver.DBException;
@@ -79,6 +83,10 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
     private static final Type MAP_STRING_OBJECT_TYPE = new TypeToken<Map<String, Object>>() {
     }.getType();
     private static final Gson gson = new GsonBuilder().create();
+    private static final int USER_IMPORT_BATCH_SIZE = 1000;
+    private static final int AUTH_DATA_PURGE_CHUNK_SIZE = 1000;
+    private static final int AUTH_DATA_PURGE_MAX_CHUNKS = 100;
+    private static final long AUTH_DATA_PURGE_CHUNK_PAUSE = 100;
 
     protected final T application;
     protected final CBDatabase database;
@@ -154,51 +162,199 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
         boolean enabled,
         @Nullable String defaultAuthRole
     ) throws DBException, SQLException {
-        createAuthSubject(dbCon, userId, SMSubjectType.user, true);
+        createUsers(dbCon, List.of(new NewUser(userId, metaParameters, enabled, defaultAuthRole)));
+    }
+
+    /**
+     * New user data
+     */
+    protected record NewUser(
+        @NotNull String userId,
+        @Nullable Map<String, String> metaParameters,
+        boolean enabled,
+        @Nullable String defaultAuthRole
+    ) {
+    }
+
+    /**
+     * Creates users in one batch. Saves user ids in database as they are.
+     */
+    public void createUsers(@NotNull Connection dbCon, @NotNull List<NewUser> users) throws DBException, SQLException {
+        if (users.isEmpty()) {
+            return;
+        }
+        List<String> userIds = users.stream().map(NewUser::userId).toList();
+        createAuthSubjects(dbCon, userIds, SMSubjectType.user, true);
+        Timestamp createTime = new Timestamp(System.currentTimeMillis());
         try (PreparedStatement dbStat = dbCon.prepareStatement(
             database.normalizeTableNames("INSERT INTO {table_prefix}CB_USER" +
                 "(USER_ID,IS_ACTIVE,CREATE_TIME,DEFAULT_AUTH_ROLE) VALUES(?,?,?,?)"))
         ) {
-            dbStat.setString(1, userId);
-            dbStat.setString(2, enabled ? CHAR_BOOL_TRUE : CHAR_BOOL_FALSE);
-            dbStat.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
-            if (CommonUtils.isEmpty(defaultAuthRole)) {
-                dbStat.setNull(4, Types.VARCHAR);
-            } else {
-                dbStat.setString(4, defaultAuthRole);
+            for (NewUser user : users) {
+                dbStat.setString(1, user.userId());
+                dbStat.setString(2, user.enabled() ? CHAR_BOOL_TRUE : CHAR_BOOL_FALSE);
+                dbStat.setTimestamp(3, createTime);
+                if (CommonUtils.isEmpty(user.defaultAuthRole())) {
+                    dbStat.setNull(4, Types.VARCHAR);
+                } else {
+                    dbStat.setString(4, user.defaultAuthRole());
+                }
+                dbStat.addBatch();
             }
-            dbStat.execute();
+            dbStat.executeBatch();
         }
-        saveSubjectMetas(dbCon, userId, metaParameters);
+        Map<String, Map<String, String>> metaParameters = new LinkedHashMap<>();
+        for (NewUser user : users) {
+            if (!CommonUtils.isEmpty(user.metaParameters())) {
+                metaParameters.put(user.userId(), user.metaParameters());
+            }
+        }
+        saveSubjectMetas(dbCon, metaParameters);
         String defaultTeamName = getDefaultUserTeam();
         if (!CommonUtils.isEmpty(defaultTeamName)) {
-            setUserTeams(dbCon, userId, new String[]{defaultTeamName}, userId);
+            setUsersTeams(dbCon, userIds, new String[]{defaultTeamName}, null);
         }
     }
 
     @Override
     public void importUsers(@NotNull SMUserImportList userImportList) throws DBException {
        try (var dbCon = database.openConnection()) {
-            importUsers(dbCon, userImportList);
+            // Connection is owned here, so each chunk is committed separately
+            importUsers(dbCon, userImportList, true);
        } catch (SQLException e) {
            log.error("Failed attempt import user: " + e.getMessage());
        }
     }
 
+    /**
+     * Imports users using caller's transaction
+     */
     protected void importUsers(@NotNull Connection connection, @NotNull SMUserImportList userImportList)
         throws DBException, SQLException {
+        importUsers(connection, userImportList, false);
+    }
+
+    private void importUsers(
+        @NotNull Connection connection,
+        @NotNull SMUserImportList userImportList,
+        boolean commitChunks
+    ) throws DBException, SQLException {
+        long startTime = System.currentTimeMillis();
+        var users = userImportList.getUsers();
+        Set<String> candidateIds = new LinkedHashSet<>();
+        for (SMUserProvisioning user : users) {
+            candidateIds.add(user.getUserId());
+            candidateIds.add(user.getUserId().toLowerCase());
+        }
+        Map<String, SMSubjectType> existingSubjects = readSubjectTypes(connection, candidateIds);
+        long readTime = System.currentTimeMillis();
+
+        // Existing user id -> auth role
+        Map<String, String> usersToUpdate = new LinkedHashMap<>();
+        // New users are saved in lower-case
+        Map<String, SMUserProvisioning> usersToCreate = new LinkedHashMap<>();
+        int skippedCount = 0;
         outer:
-        for (SMUserProvisioning user : userImportList.getUsers()) {
+        for (SMUserProvisioning user : users) {
             String authRole = user.getAuthRole() == null ? userImportList.getAuthRole() : user.getAuthRole();
             for (String possibleUserId : List.of(user.getUserId(), user.getUserId().toLowerCase())) {
-                if (isSubjectExists(possibleUserId)) {
-                    log.info("User already exist : " + possibleUserId);
-                    setUserAuthRole(connection, possibleUserId, authRole);
-                    enableUser(connection, possibleUserId, true);
+                SMSubjectType subjectType = existingSubjects.get(possibleUserId);
+                if (subjectType == SMSubjectType.user) {
+                    log.debug("User already exist : " + possibleUserId);
+                    usersToUpdate.put(possibleUserId, authRole);
                     continue outer;
+                } else if (subjectType != null) {
+                    log.warn("Cannot import user '" + possibleUserId + "': team with the same name already exists");
+                    skippedCount++;
+                    continue outer;
+                }
+            }
+            usersToCreate.putIfAbsent(user.getUserId().toLowerCase(), user);
+        }
+        long diffTime = System.currentTimeMillis();
+
+        List<String> updateIds = new ArrayList<>(usersToUpdate.keySet());
+        List<NewUser> newUsers = new ArrayList<>(usersToCreate.size());
+        usersToCreate.forEach((userId, user) -> newUsers.add(new NewUser(
+            userId,
+            user.getMetaParameters(),
+            true,
+            user.getAuthRole() == null ? userImportList.getAuthRole() : user.getAuthRole())));
+        for (int i = 0; i < updateIds.size(); i += USER_IMPORT_BATCH_SIZE) {
+            List<String> chunk = updateIds.subList(i, Math.min(i + USER_IMPORT_BATCH_SIZE, updateIds.size()));
+            if (commitChunks) {
+                try (JDBCTransaction txn = new JDBCTransaction(connection)) {
+                    updateImportedUsers(connection, chunk, usersToUpdate);
+                    txn.commit();
+                }
+            } else {
+                updateImportedUsers(connection, chunk, usersToUpdate);
+            }
+        }
+        long updateTime = System.currentTimeMillis();
+        for (int i = 0; i < newUsers.size(); i += USER_IMPORT_BATCH_SIZE) {
+            List<NewUser> chunk = newUsers.subList(i, Math.min(i + USER_IMPORT_BATCH_SIZE, newUsers.size()));
+            if (commitChunks) {
+                try (JDBCTransaction txn = new JDBCTransaction(connection)) {
+                    createUsers(connection, chunk);
+                    txn.commit();
+                }
+            } else {
+                createUsers(connection, chunk);
+            }
+        }
+        long createTime = System.currentTimeMillis();
+        if (!usersToUpdate.isEmpty()) {
+            // Auth role of existing users may change
+            SMTokenPermissionsCache.getInstance().invalidateAll();
+        }
+        log.info("Users import finished: " + newUsers.size() + " created, " + updateIds.size() + " updated, " +
+            skippedCount + " skipped. Read " + (readTime - startTime) + "ms, diff " + (diffTime - readTime) +
+            "ms, update " + (updateTime - diffTime) + "ms, create " + (createTime - updateTime) + "ms");
+    }
+
+    /**
+     * Reads types of existing subjects, ids are queried by chunks
+     */
+    @NotNull
+    private Map<String, SMSubjectType> readSubjectTypes(
+        @NotNull Connection dbCon,
+        @NotNull Collection<String> subjectIds
+    ) throws SQLException {
+        Map<String, SMSubjectType> result = new HashMap<>();
+        List<String> ids = new ArrayList<>(subjectIds);
+        for (int i = 0; i < ids.size(); i += USER_IMPORT_BATCH_SIZE) {
+            List<String> chunk = ids.subList(i, Math.min(i + USER_IMPORT_BATCH_SIZE, ids.size()));
+            try (PreparedStatement dbStat = dbCon.prepareStatement(database.normalizeTableNames(
+                "SELECT SUBJECT_ID,SUBJECT_TYPE FROM {table_prefix}CB_AUTH_SUBJECT " +
+                    "WHERE SUBJECT_ID IN (" + SQLUtils.generateParamList(chunk.size()) + ")"))
+            ) {
+                setStringParameters(dbStat, 1, chunk);
+                try (ResultSet dbResult = dbStat.executeQuery()) {
+                    while (dbResult.next()) {
+                        result.put(dbResult.getString(1), SMSubjectType.fromCode(dbResult.getString(2)));
+                    }
                 }
             }
-            createUser(connection, user.getUserId().toLowerCase(), user.getMetaParameters(), true, authRole);
+        }
+        return result;
+    }
+
+    private void updateImportedUsers(
+        @NotNull Connection dbCon,
+        @NotNull List<String> userIds,
+        @NotNull Map<String, String> authRoles
+    ) throws SQLException {
+        try (PreparedStatement dbStat = dbCon.prepareStatement(database.normalizeTableNames(
+            "UPDATE {table_prefix}CB_USER SET DEFAULT_AUTH_ROLE=?,IS_ACTIVE=? WHERE USER_ID=?"))
+        ) {
+            for (String userId : userIds) {
+                JDBCUtils.setStringOrNull(dbStat, 1, authRoles.get(userId));
+                dbStat.setString(2, CHAR_BOOL_TRUE);
+                dbStat.setString(3, userId);
+                dbStat.addBatch();
+            }
+            dbStat.executeBatch();
         }
     }
 
@@ -218,6 +374,7 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
         } catch (SQLException e) {
             throw new DBCException("Error deleting user from database", e);
         }
+        SMObjectPermissionsIndex.getInstance().invalidate();
         var event = new WSUserDeletedEvent(userId);
         application.getEventController().addEvent(event);
     }
@@ -289,6 +446,20 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
     //TODO implement add/delete user teams api
     protected void setUserTeams(@NotNull Connection dbCon, String userId, String[] teamIds, String grantorId)
         throws SQLException {
+        setUsersTeams(dbCon, List.of(userId), teamIds, grantorId);
+    }
+
+    /**
+     * Sets the same teams to all users. Default user team is always kept.
+     *
+     * @param grantorId grantor of new team memberships, or null if users are grantors of their own memberships
+     */
+    protected void setUsersTeams(
+        @NotNull Connection dbCon,
+        @NotNull Collection<String> userIds,
+        String[] teamIds,
+        @Nullable String grantorId
+    ) throws SQLException {
 
         String deleteUserTeamsSql = "DELETE FROM {table_prefix}CB_USER_TEAM WHERE USER_ID=?";
 
@@ -297,12 +468,15 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
                 deleteUserTeamsSql + " AND TEAM_ID NOT IN (" + SQLUtils.generateParamList(teamIds.length) + ")";
         }
         try (PreparedStatement dbStat = dbCon.prepareStatement(database.normalizeTableNames(deleteUserTeamsSql))) {
-            int index = 1;
-            dbStat.setString(index++, userId);
-            for (String teamId : teamIds) {
-                dbStat.setString(index++, teamId);
+            for (String userId : userIds) {
+                int index = 1;
+                dbStat.setString(index++, userId);
+                for (String teamId : teamIds) {
+                    dbStat.setString(index++, teamId);
+                }
+                dbStat.addBatch();
             }
-            dbStat.execute();
+            dbStat.executeBatch();
         }
 
         String defaultUserTeam = getDefaultUserTeam();
@@ -310,26 +484,61 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
             teamIds = ArrayUtils.add(String.class, teamIds, defaultUserTeam);
         }
         if (!ArrayUtils.isEmpty(teamIds)) {
-            Set<String> currentUserTeams = getCurrentUserTeams(dbCon, userId);
-
+            Map<String, Set<String>> currentUsersTeams = getCurrentUsersTeams(dbCon, userIds);
+            Timestamp grantTime = new Timestamp(System.currentTimeMillis());
+            boolean hasNewTeams = false;
             try (PreparedStatement dbStat = dbCon.prepareStatement(
                 database.normalizeTableNames("INSERT INTO {table_prefix}CB_USER_TEAM" +
                     "(USER_ID,TEAM_ID,GRANT_TIME,GRANTED_BY) VALUES(?,?,?,?)"))
             ) {
-                for (String teamId : teamIds) {
-                    if (currentUserTeams.contains(teamId)) {
-                        continue;
+                for (String userId : userIds) {
+                    Set<String> currentUserTeams = currentUsersTeams.getOrDefault(userId, Set.of());
+                    for (String teamId : teamIds) {
+                        if (currentUserTeams.contains(teamId)) {
+                            continue;
+                        }
+                        dbStat.setString(1, userId);
+                        dbStat.setString(2, teamId);
+                        dbStat.setTimestamp(3, grantTime);
+                        dbStat.setString(4, grantorId == null ? userId : grantorId);
+                        dbStat.addBatch();
+                        hasNewTeams = true;
                     }
-                    dbStat.setString(1, userId);
-                    dbStat.setString(2, teamId);
-                    dbStat.setTimestamp(3, new Timestamp(System.currentTimeMillis()));
-                    dbStat.setString(4, grantorId);
-                    dbStat.execute();
+                }
+                if (hasNewTeams) {
+                    dbStat.executeBatch();
                 }
             }
         }
     }
 
+    /**
+     * Reads teams of users, ids are queried by chunks
+     */
+    @NotNull
+    private Map<String, Set<String>> getCurrentUsersTeams(
+        @NotNull Connection dbCon,
+        @NotNull Collection<String> userIds
+    ) throws SQLException {
+        Map<String, Set<String>> result = new HashMap<>();
+        List<String> ids = new ArrayList<>(userIds);
+        for (int i = 0; i < ids.size(); i += USER_IMPORT_BATCH_SIZE) {
+            List<String> chunk = ids.subList(i, Math.min(i + USER_IMPORT_BATCH_SIZE, ids.size()));
+            try (PreparedStatement dbStat = dbCon.prepareStatement(database.normalizeTableNames(
+                "SELECT USER_ID,TEAM_ID FROM {table_prefix}CB_USER_TEAM " +
+                    "WHERE USER_ID IN (" + SQLUtils.generateParamList(chunk.size()) + ")"))
+            ) {
+                setStringParameters(dbStat, 1, chunk);
+                try (ResultSet dbResult = dbStat.executeQuery()) {
+                    while (dbResult.next()) {
+                        result.computeIfAbsent(dbResult.getString(1), id -> new HashSet<>()).add(dbResult.getString(2));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
     @NotNull
     private Set<String> getCurrentUserTeams(@NotNull Connection dbCon, String userId) throws SQLException {
         return new HashSet<>(JDBCUtils.queryStrings(
@@ -656,15 +865,27 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
 
     private void saveSubjectMetas(Connection dbCon, String subjectId, Map<String, String> metaParameters) throws SQLException {
         if (!CommonUtils.isEmpty(metaParameters)) {
+            saveSubjectMetas(dbCon, Map.of(subjectId, metaParameters));
+        }
+    }
+
+    /**
+     * Saves meta parameters of several subjects in one batch
+     */
+    private void saveSubjectMetas(Connection dbCon, Map<String, Map<String, String>> subjectsMetaParameters) throws SQLException {
+        if (!CommonUtils.isEmpty(subjectsMetaParameters)) {
             try (PreparedStatement dbStat = dbCon.prepareStatement(
                 database.normalizeTableNames("INSERT INTO {table_prefix}CB_SUBJECT_META(SUBJECT_ID,META_ID,META_VALUE) VALUES(?,?,?)"))
             ) {
-                dbStat.setString(1, subjectId);
-                for (Map.Entry<String, String> mp : metaParameters.entrySet()) {
-                    dbStat.setString(2, mp.getKey());
-                    dbStat.setString(3, mp.getValue());
-                    dbStat.execute();
+                for (Map.Entry<String, Map<String, String>> subject : subjectsMetaParameters.entrySet()) {
+                    dbStat.setString(1, subject.getKey());
+                    for (Map.Entry<String, String> mp : subject.getValue().entrySet()) {
+                        dbStat.setString(2, mp.getKey());
+                        dbStat.setString(3, mp.getValue());
+                        dbStat.addBatch();
+                    }
                 }
+                dbStat.executeBatch();
             }
         }
     }
@@ -1332,6 +1553,7 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
         } catch (SQLException e) {
             throw new DBCException("Error deleting team from database", e);
         }
+        SMObjectPermissionsIndex.getInstance().invalidate();
         if (force) {
             addSubjectPermissionsUpdateEvent(teamId, SMSubjectType.team);
         }
@@ -1664,15 +1886,18 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
         boolean forceSessionsLogout
     ) throws DBException {
         String authAttemptId = UUID.randomUUID().toString();
+        String inputUsername = null;
+        if (this.getAuthProvider(authProviderId).getInstance() instanceof SMBruteForceProtected bruteforceProtected) {
+            Object username = bruteforceProtected.getInputUsername(authData);
+            if (username != null) {
+                inputUsername = username.toString();
+            }
+        }
         try (Connection dbCon = database.openConnection()) {
+            if (smConfig.isCheckBruteforce() && inputUsername != null) {
+                BruteForceUtils.checkBruteforce(smConfig, getLatestUserLogins(dbCon, authProviderId, inputUsername));
+            }
             try (JDBCTransaction txn = new JDBCTransaction(dbCon)) {
-                if (smConfig.isCheckBruteforce() && this.getAuthProvider(authProviderId).getInstance() instanceof SMBruteForceProtected bruteforceProtected) {
-                    Object inputUsername = bruteforceProtected.getInputUsername(authData);
-                    if (inputUsername != null) {
-                        BruteForceUtils.checkBruteforce(smConfig,
-                            getLatestUserLogins(dbCon, authProviderId, inputUsername.toString()));
-                    }
-                }
                 try (PreparedStatement dbStat = dbCon.prepareStatement(
                     database.normalizeTableNames(
                         "INSERT INTO {table_prefix}CB_AUTH_ATTEMPT" +
@@ -1692,16 +1917,7 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
                         dbStat.setNull(6, Types.VARCHAR);
                     }
                     dbStat.setString(7, isMainSession ? CHAR_BOOL_TRUE : CHAR_BOOL_FALSE);
-                    if (this.getAuthProvider(authProviderId).getInstance() instanceof SMBruteForceProtected bruteforceProtected) {
-                        Object inputUsername = bruteforceProtected.getInputUsername(authData);
-                        if (inputUsername != null) {
-                            dbStat.setString(8, inputUsername.toString());
-                        } else {
-                            dbStat.setString(8, null);
-                        }
-                    } else {
-                        dbStat.setString(8, null);
-                    }
+                    dbStat.setString(8, inputUsername);
                     dbStat.setString(9, errorCode);
                     dbStat.setString(10, forceSessionsLogout ? CHAR_BOOL_TRUE : CHAR_BOOL_FALSE);
                     dbStat.execute();
@@ -1722,6 +1938,10 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
                 }
                 txn.commit();
             }
+            if (inputUsername != null && isLoginAttemptsTrackerEnabled()) {
+                UserLoginAttemptsTracker.getInstance().addAttempt(
+                    authAttemptId, authProviderId, inputUsername, status, LocalDateTime.now(), smConfig.getMaxFailedLogin());
+            }
             return authAttemptId;
         } catch (SQLException e) {
             throw new DBException(e.getMessage(), e);
@@ -1729,6 +1949,12 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
     }
 
     private List<UserLoginRecord> getLatestUserLogins(Connection dbCon, String authProviderId, String inputLogin) throws SQLException {
+        LocalDateTime since = LocalDateTime.now().minusSeconds(smConfig.getBlockLoginPeriod());
+        if (isLoginAttemptsTrackerEnabled()) {
+            UserLoginAttemptsTracker tracker = UserLoginAttemptsTracker.getInstance();
+            tracker.ensureLoaded(t -> loadRecentLoginAttempts(dbCon, t));
+            return tracker.getLatestAttempts(authProviderId, inputLogin, since);
+        }
         List<UserLoginRecord> userLoginRecords = new ArrayList<>();
         try (PreparedStatement dbStat = dbCon.prepareStatement(
             database.normalizeTableNames(
@@ -1746,8 +1972,7 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
         )) {
             dbStat.setString(1, authProviderId);
             dbStat.setString(2, inputLogin);
-            dbStat.setTimestamp(3,
-                Timestamp.valueOf(LocalDateTime.now().minusSeconds(smConfig.getBlockLoginPeriod())));
+            dbStat.setTimestamp(3, Timestamp.valueOf(since));
             try (ResultSet dbResult = dbStat.executeQuery()) {
                 while (dbResult.next()) {
                     UserLoginRecord loginDto = new UserLoginRecord(
@@ -1761,6 +1986,46 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
         return userLoginRecords;
     }
 
+    /**
+     * Login attempts made on other cluster nodes are not visible in memory,
+     * so in multi-node mode brute force checks always read attempts from the database.
+     */
+    private boolean isLoginAttemptsTrackerEnabled() {
+        return smConfig.isCheckBruteforce() && !application.isMultiNode();
+    }
+
+    /**
+     * Seeds login attempts tracker with attempts of the current block period
+     */
+    private void loadRecentLoginAttempts(
+        @NotNull Connection dbCon,
+        @NotNull UserLoginAttemptsTracker tracker
+    ) throws SQLException {
+        try (PreparedStatement dbStat = dbCon.prepareStatement(
+            database.normalizeTableNames(
+                "SELECT attempt.AUTH_ID, info.AUTH_PROVIDER_ID, attempt.AUTH_USERNAME, attempt.AUTH_STATUS, attempt.CREATE_TIME" +
+                    " FROM {table_prefix}CB_AUTH_ATTEMPT attempt" +
+                    " JOIN {table_prefix}CB_AUTH_ATTEMPT_INFO info ON attempt.AUTH_ID = info.AUTH_ID" +
+                    " WHERE attempt.AUTH_USERNAME IS NOT NULL AND attempt.CREATE_TIME > ?" +
+                    " ORDER BY attempt.CREATE_TIME"
+            )
+        )) {
+            dbStat.setTimestamp(1, Timestamp.valueOf(LocalDateTime.now().minusSeconds(smConfig.getBlockLoginPeriod())));
+            try (ResultSet dbResult = dbStat.executeQuery()) {
+                while (dbResult.next()) {
+                    tracker.addAttempt(
+                        dbResult.getString(1),
+                        dbResult.getString(2),
+                        dbResult.getString(3),
+                        SMAuthStatus.valueOf(dbResult.getString(4)),
+                        dbResult.getTimestamp(5).toLocalDateTime(),
+                        smConfig.getMaxFailedLogin()
+                    );
+                }
+            }
+        }
+    }
+
     private boolean isSmSessionNotExpired(String prevSessionId) {
         //TODO: implement after we start tracking user logout
         return true;
@@ -1837,6 +2102,9 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
         } catch (SQLException e) {
             throw new DBCException("Error updating auth status", e);
         }
+        if (isLoginAttemptsTrackerEnabled()) {
+            UserLoginAttemptsTracker.getInstance().updateStatus(authId, authStatus);
+        }
     }
 
     @Override
@@ -2027,6 +2295,7 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
         } catch (SQLException e) {
             throw new DBCException("Session invalidation failed", e);
         }
+        SMTokenPermissionsCache.getInstance().invalidateToken(smToken);
     }
 
     @Override
@@ -2037,6 +2306,7 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
         } catch (SQLException e) {
             throw new DBCException("Session invalidation failed", e);
         }
+        SMTokenPermissionsCache.getInstance().invalidateAll();
         application.getEventController().addEvent(new WSUserCloseSessionsEvent(List.of(), getSmSessionId(), getUserId()));
     }
 
@@ -2047,6 +2317,7 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
         } catch (SQLException e) {
             throw new DBCException("Session invalidation failed", e);
         }
+        SMTokenPermissionsCache.getInstance().invalidateUser(userId);
     }
 
     private SMCredentials getCurrentUserCreds() throws SMException {
@@ -2530,6 +2801,7 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
     ) throws SQLException, DBException {
         JDBCUtils.executeStatement(
             dbCon, database.normalizeTableNames("DELETE FROM {table_prefix}CB_AUTH_TOKEN WHERE SESSION_ID=?"), smSessionId);
+        SMTokenPermissionsCache.getInstance().invalidateSession(smSessionId);
         return generateNewSessionTokens(smSessionId, userId, authRole, dbCon);
     }
 
@@ -2587,6 +2859,7 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
                 for (String sessionId : sessionsId) {
                     dbStat.setString(1, sessionId);
                     dbStat.executeUpdate();
+                    SMTokenPermissionsCache.getInstance().invalidateSession(sessionId);
                 }
             }
         } catch (SQLException e) {
@@ -2635,6 +2908,15 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
 
     @NotNull
     private SMAuthPermissions getTokenPermissions(@NotNull String token) throws DBException {
+        // Tokens deleted on other cluster nodes (logout, refresh) are not broadcast, so the cache is local only
+        SMTokenPermissionsCache permissionsCache = application.isMultiNode() ? null : SMTokenPermissionsCache.getInstance();
+        if (permissionsCache != null) {
+            SMAuthPermissions cachedPermissions = permissionsCache.getPermissions(token);
+            if (cachedPermissions != null) {
+                return cachedPermissions;
+            }
+        }
+        long cacheGeneration = permissionsCache == null ? 0 : permissionsCache.getGeneration();
         String userId;
         String sessionId;
         String authRole;
@@ -2661,7 +2943,11 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
             throw new DBCException("Error reading token info in database", e);
         }
         var permissions = userId == null ? getAnonymousUserPermissions() : getUserPermissions(userId, authRole);
-        return new SMAuthPermissions(userId, sessionId, permissions);
+        SMAuthPermissions authPermissions = new SMAuthPermissions(userId, sessionId, permissions);
+        if (permissionsCache != null) {
+            permissionsCache.putPermissions(token, authPermissions, cacheGeneration);
+        }
+        return authPermissions;
     }
 
     @Override
@@ -2747,13 +3033,13 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
 //        validatePermissions(objectType, permissions);
         try (Connection dbCon = database.openConnection()) {
             try (JDBCTransaction txn = new JDBCTransaction(dbCon)) {
-                var sqlBuilder = new StringBuilder("DELETE FROM {table_prefix}CB_OBJECT_PERMISSIONS WHERE SUBJECT_ID IN (");
-                appendStringParameters(sqlBuilder, subjectIds);
-                sqlBuilder.append(") AND OBJECT_TYPE=? ")
-                    .append("AND OBJECT_ID IN (");
-                appendStringParameters(sqlBuilder, objectIds);
-                sqlBuilder.append(")");
-                JDBCUtils.executeStatement(dbCon, database.normalizeTableNames(sqlBuilder.toString()), objectType.name());
+                String deleteSql = "DELETE FROM {table_prefix}CB_OBJECT_PERMISSIONS WHERE SUBJECT_ID IN (" +
+                    SQLUtils.generateParamList(subjectIds.size()) + ") AND OBJECT_TYPE=? " +
+                    "AND OBJECT_ID IN (" + SQLUtils.generateParamList(objectIds.size()) + ")";
+                List<Object> deleteParams = new ArrayList<>(subjectIds);
+                deleteParams.add(objectType.name());
+                deleteParams.addAll(objectIds);
+                JDBCUtils.executeStatement(dbCon, database.normalizeTableNames(deleteSql), deleteParams.toArray());
                 if (!CommonUtils.isEmpty(permissions)) {
                     try (PreparedStatement dbStat = dbCon.prepareStatement(
                         database.normalizeTableNames(
@@ -2781,6 +3067,7 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
                 }
                 txn.commit();
             }
+            SMObjectPermissionsIndex.getInstance().invalidate();
             addObjectPermissionsUpdateEvent(objectIds, objectType);
         } catch (SQLException e) {
             throw new DBCException("Error granting object permissions", e);
@@ -2825,6 +3112,7 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
                 }
                 txn.commit();
             }
+            SMObjectPermissionsIndex.getInstance().invalidate();
             addObjectPermissionsUpdateEvent(objectIds, objectType);
         } catch (SQLException e) {
             throw new DBCException("Error granting object permissions", e);
@@ -2866,6 +3154,7 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
                 dbStat.setString(index++, permission);
             }
             dbStat.execute();
+            SMObjectPermissionsIndex.getInstance().invalidate();
             addObjectPermissionsDeleteEvent(objectIds, objectType);
         } catch (SQLException e) {
             throw new DBCException("Error granting object permissions", e);
@@ -2877,6 +3166,12 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
         if (subjectType == null) {
             subjectType = getSubjectType(subjectId);
         }
+        if (subjectType == SMSubjectType.user) {
+            SMTokenPermissionsCache.getInstance().invalidateUser(subjectId);
+        } else {
+            // Team permissions affect all team members
+            SMTokenPermissionsCache.getInstance().invalidateAll();
+        }
         if (subjectType == null) {
             log.error("Subject type is not found for subject '" + subjectId + "'");
             return;
@@ -2922,7 +3217,7 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
                 objectType.name(),
                 objectId
             );
-
+            SMObjectPermissionsIndex.getInstance().invalidate();
         } catch (SQLException e) {
             throw new DBCException("Error deleting object permissions", e);
         }
@@ -2972,7 +3267,7 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
                 objectType.name(),
                 subjectId
             );
-
+            SMObjectPermissionsIndex.getInstance().invalidate();
         } catch (SQLException e) {
             throw new DBCException("Error deleting subject permissions", e);
         }
@@ -2996,13 +3291,19 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
         String subjectId = getSubjectId();
         try (Connection dbCon = database.openConnection()) {
             Set<String> allSubjects = getAllLinkedSubjects(dbCon, subjectId);
+            if (isObjectPermissionsIndexAvailable(dbCon)) {
+                return SMObjectPermissionsIndex.getInstance().getAllObjectsPermissions(objectType.name(), allSubjects)
+                    .entrySet()
+                    .stream()
+                    .map(entry -> new SMObjectPermissions(entry.getKey(), entry.getValue()))
+                    .collect(Collectors.toList());
+            }
             {
-                var sqlBuilder = new StringBuilder("SELECT OBJECT_ID,PERMISSION FROM {table_prefix}CB_OBJECT_PERMISSIONS ");
-                sqlBuilder.append("WHERE SUBJECT_ID IN (");
-                appendStringParameters(sqlBuilder, allSubjects);
-                sqlBuilder.append(") AND OBJECT_TYPE=?");
-                try (PreparedStatement dbStat = dbCon.prepareStatement(database.normalizeTableNames(sqlBuilder.toString()))) {
-                    dbStat.setString(1, objectType.name());
+                String sql = "SELECT OBJECT_ID,PERMISSION FROM {table_prefix}CB_OBJECT_PERMISSIONS " +
+                    "WHERE SUBJECT_ID IN (" + SQLUtils.generateParamList(allSubjects.size()) + ") AND OBJECT_TYPE=?";
+                try (PreparedStatement dbStat = dbCon.prepareStatement(database.normalizeTableNames(sql))) {
+                    int index = setStringParameters(dbStat, 1, allSubjects);
+                    dbStat.setString(index, objectType.name());
 
                     var permissionsByObjectId = new LinkedHashMap<String, Set<String>>();
                     try (ResultSet dbResult = dbStat.executeQuery()) {
@@ -3031,15 +3332,20 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
     ) throws DBException {
         try (Connection dbCon = database.openConnection()) {
             Set<String> allSubjects = getAllLinkedSubjects(dbCon, subjectId);
+            if (isObjectPermissionsIndexAvailable(dbCon)) {
+                return new SMObjectPermissions(
+                    objectId,
+                    SMObjectPermissionsIndex.getInstance().getObjectPermissions(objectType.name(), objectId, allSubjects)
+                );
+            }
             {
-                var sqlBuilder = new StringBuilder("SELECT PERMISSION FROM {table_prefix}CB_OBJECT_PERMISSIONS ");
-                sqlBuilder.append("WHERE SUBJECT_ID IN (");
-                appendStringParameters(sqlBuilder, allSubjects);
-                sqlBuilder.append(") AND OBJECT_TYPE=? AND OBJECT_ID=?");
+                String sql = "SELECT PERMISSION FROM {table_prefix}CB_OBJECT_PERMISSIONS " +
+                    "WHERE SUBJECT_ID IN (" + SQLUtils.generateParamList(allSubjects.size()) + ") AND OBJECT_TYPE=? AND OBJECT_ID=?";
 
-                try (PreparedStatement dbStat = dbCon.prepareStatement(database.normalizeTableNames(sqlBuilder.toString()))) {
-                    dbStat.setString(1, objectType.name());
-                    dbStat.setString(2, objectId);
+                try (PreparedStatement dbStat = dbCon.prepareStatement(database.normalizeTableNames(sql))) {
+                    int index = setStringParameters(dbStat, 1, allSubjects);
+                    dbStat.setString(index++, objectType.name());
+                    dbStat.setString(index, objectId);
 
                     var permissions = new HashSet<String>();
                     try (ResultSet dbResult = dbStat.executeQuery()) {
@@ -3100,10 +3406,11 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
                 new StringBuilder("SELECT OP.OBJECT_ID,S.SUBJECT_TYPE,S.SUBJECT_ID,OP.PERMISSION\n")
                     .append("FROM {table_prefix}CB_OBJECT_PERMISSIONS OP, {table_prefix}CB_AUTH_SUBJECT S\n")
                     .append("WHERE S.SUBJECT_ID = OP.SUBJECT_ID AND OP.SUBJECT_ID IN (");
-            appendStringParameters(sqlBuilder, allLinkedSubjects);
+            sqlBuilder.append(SQLUtils.generateParamList(allLinkedSubjects.size()));
             sqlBuilder.append(") AND OP.OBJECT_TYPE=?");
             try (PreparedStatement dbStat = dbCon.prepareStatement(database.normalizeTableNames(sqlBuilder.toString()))) {
-                dbStat.setString(1, smObjectType.name());
+                int index = setStringParameters(dbStat, 1, allLinkedSubjects);
+                dbStat.setString(index, smObjectType.name());
                 try (ResultSet dbResult = dbStat.executeQuery()) {
                     while (dbResult.next()) {
                         String objectId = dbResult.getString(1);
@@ -3126,13 +3433,32 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
         }
     }
 
-    private static void appendStringParameters(StringBuilder sql, @NotNull Collection<String> subjectIds) {
-        boolean first = true;
-        for (String id : subjectIds) {
-            if (!first) sql.append(",");
-            first = false;
-            sql.append("'").append(id.replace("'", "''")).append("'");
+    /**
+     * Binds string parameters starting from the given index
+     *
+     * @return index of the next parameter
+     */
+    private static int setStringParameters(
+        @NotNull PreparedStatement dbStat,
+        int index,
+        @NotNull Collection<String> values
+    ) throws SQLException {
+        for (String value : values) {
+            dbStat.setString(index++, value);
+        }
+        return index;
+    }
+
+    private boolean isObjectPermissionsIndexAvailable(@NotNull Connection dbCon) {
+        // Grants changed on other cluster nodes must be effective immediately, so they are always read from the database
+        if (application.isMultiNode()) {
+            return false;
         }
+        return SMObjectPermissionsIndex.getInstance().ensureLoaded(
+            dbCon,
+            database.normalizeTableNames(
+                "SELECT OBJECT_TYPE,OBJECT_ID,SUBJECT_ID,PERMISSION FROM {table_prefix}CB_OBJECT_PERMISSIONS")
+        );
     }
 
     public void shutdown() {
@@ -3172,15 +3498,27 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
         String subjectId,
         SMSubjectType subjectType,
         boolean secretStorage
+    ) throws SQLException {
+        createAuthSubjects(dbCon, List.of(subjectId), subjectType, secretStorage);
+    }
+
+    private void createAuthSubjects(
+        Connection dbCon,
+        Collection<String> subjectIds,
+        SMSubjectType subjectType,
+        boolean secretStorage
     ) throws SQLException {
         try (PreparedStatement dbStat = dbCon.prepareStatement(
             database.normalizeTableNames(
                 "INSERT INTO {table_prefix}CB_AUTH_SUBJECT(SUBJECT_ID,SUBJECT_TYPE,IS_SECRET_STORAGE) " +
                     "VALUES (?,?,?)"))) {
-            dbStat.setString(1, subjectId);
-            dbStat.setString(2, subjectType.getCode());
-            dbStat.setString(3, booleanToString(secretStorage));
-            dbStat.execute();
+            for (String subjectId : subjectIds) {
+                dbStat.setString(1, subjectId);
+                dbStat.setString(2, subjectType.getCode());
+                dbStat.setString(3, booleanToString(secretStorage));
+                dbStat.addBatch();
+            }
+            dbStat.executeBatch();
         }
     }
 
@@ -3245,25 +3583,140 @@ public class CBEmbeddedSecurityController<T extends ServletAuthApplication>
         return false;
     }
 
-    public void clearOldAuthAttemptInfo() throws DBException {
-        try (Connection dbCon = database.openConnection()) {
-            JDBCUtils.executeStatement(dbCon,
-                database.normalizeTableNames("DELETE FROM {table_prefix}CB_AUTH_ATTEMPT_INFO " +
-                    "WHERE EXISTS " +
-                    "(SELECT 1 FROM {table_prefix}CB_AUTH_ATTEMPT AA " +
+    /**
+     * Purges expired auth attempt info, auth attempts and tokens.
+     * Rows are deleted in key ordered chunks, each chunk in its own transaction.
+     *
+     * @return true if all expired data was purged, false if run was stopped by chunks limit
+     */
+    public boolean clearOldAuthAttemptInfo() throws DBException {
+        SMAuthDataPurgeState purgeState = SMAuthDataPurgeState.getInstance();
+        purgeState.startRun();
+        boolean complete = false;
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            Timestamp currentTime = Timestamp.valueOf(now);
+            Timestamp infoCutoff = Timestamp.valueOf(now.minusMinutes(smConfig.getExpiredAuthAttemptInfoTtl()));
+            // Failed attempts are used by brute force protection, never purge them earlier
+            LocalDateTime attemptExpireTime = now.minusMinutes(smConfig.getExpiredAuthAttemptTtl());
+            LocalDateTime blockLoginTime = now.minusSeconds(smConfig.getBlockLoginPeriod());
+            Timestamp attemptCutoff = Timestamp.valueOf(
+                attemptExpireTime.isBefore(blockLoginTime) ? attemptExpireTime : blockLoginTime);
+
+            complete = purgeInChunks(
+                SMAuthDataPurgeState.Target.AUTH_ATTEMPT_INFO,
+                "SELECT DISTINCT INFO.AUTH_ID FROM {table_prefix}CB_AUTH_ATTEMPT_INFO INFO " +
+                    "JOIN {table_prefix}CB_AUTH_ATTEMPT AA ON AA.AUTH_ID = INFO.AUTH_ID " +
                     "LEFT JOIN {table_prefix}CB_AUTH_TOKEN CAT ON AA.SESSION_ID = CAT.SESSION_ID " +
                     "WHERE (CAT.REFRESH_TOKEN_EXPIRATION_TIME < ? OR CAT.EXPIRATION_TIME IS NULL) " +
-                    "AND AA.AUTH_ID={table_prefix}CB_AUTH_ATTEMPT_INFO.AUTH_ID " +
-                    "AND AUTH_STATUS='" + SMAuthStatus.EXPIRED + "') " +
-                    "AND CREATE_TIME<?"),
-                Timestamp.valueOf(LocalDateTime.now()),
-                Timestamp.valueOf(LocalDateTime.now().minusMinutes(smConfig.getExpiredAuthAttemptInfoTtl()))
+                    "AND AA.AUTH_STATUS = ? AND INFO.CREATE_TIME < ? AND INFO.AUTH_ID > ? " +
+                    "ORDER BY INFO.AUTH_ID",
+                List.of(currentTime, SMAuthStatus.EXPIRED.name(), infoCutoff),
+                List.of("DELETE FROM {table_prefix}CB_AUTH_ATTEMPT_INFO WHERE AUTH_ID IN ")
             );
+            complete = purgeInChunks(
+                SMAuthDataPurgeState.Target.AUTH_ATTEMPT,
+                "SELECT AA.AUTH_ID FROM {table_prefix}CB_AUTH_ATTEMPT AA " +
+                    "WHERE AA.AUTH_STATUS IN (?,?) AND AA.CREATE_TIME < ? " +
+                    "AND NOT EXISTS (SELECT 1 FROM {table_prefix}CB_AUTH_TOKEN CAT " +
+                    "WHERE CAT.SESSION_ID = AA.SESSION_ID AND CAT.REFRESH_TOKEN_EXPIRATION_TIME >= ?) " +
+                    "AND AA.AUTH_ID > ? " +
+                    "ORDER BY AA.AUTH_ID",
+                List.of(SMAuthStatus.EXPIRED.name(), SMAuthStatus.ERROR.name(), attemptCutoff, currentTime),
+                List.of(
+                    "DELETE FROM {table_prefix}CB_AUTH_ATTEMPT_INFO WHERE AUTH_ID IN ",
+                    "DELETE FROM {table_prefix}CB_AUTH_ATTEMPT WHERE AUTH_ID IN "
+                )
+            ) && complete;
+            complete = purgeInChunks(
+                SMAuthDataPurgeState.Target.AUTH_TOKEN,
+                "SELECT TOKEN_ID FROM {table_prefix}CB_AUTH_TOKEN " +
+                    "WHERE REFRESH_TOKEN_EXPIRATION_TIME < ? AND TOKEN_ID > ? " +
+                    "ORDER BY TOKEN_ID",
+                List.of(infoCutoff),
+                List.of("DELETE FROM {table_prefix}CB_AUTH_TOKEN WHERE TOKEN_ID IN ")
+            ) && complete;
+            return complete;
         } catch (SQLException e) {
             throw new DBCException("Error deleting auth attempt info", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            purgeState.finishRun(complete);
         }
     }
 
+    /**
+     * Deletes rows found by keys query chunk by chunk, starting after the target high-water mark.
+     * Keys query takes the last processed key as its last parameter and must be ordered by this key.
+     *
+     * @return true if there is nothing more to purge
+     */
+    private boolean purgeInChunks(
+        @NotNull SMAuthDataPurgeState.Target target,
+        @NotNull String keysQuery,
+        @NotNull List<Object> queryParameters,
+        @NotNull List<String> deleteStatements
+    ) throws SQLException, InterruptedException {
+        SMAuthDataPurgeState purgeState = SMAuthDataPurgeState.getInstance();
+        String lastKey = CommonUtils.notEmpty(purgeState.getHighWaterMark(target));
+        String keysSql = database.normalizeTableNames(keysQuery) + " " +
+            database.getDialect().getOffsetLimitQueryPart(0, AUTH_DATA_PURGE_CHUNK_SIZE);
+        for (int chunk = 0; chunk < AUTH_DATA_PURGE_MAX_CHUNKS; chunk++) {
+            if (chunk > 0) {
+                // Let concurrent logins use the tables between chunks
+                Thread.sleep(AUTH_DATA_PURGE_CHUNK_PAUSE);
+            }
+            List<String> keys = new ArrayList<>();
+            try (Connection dbCon = database.openConnection()) {
+                try (PreparedStatement dbStat = dbCon.prepareStatement(keysSql)) {
+                    int index = 1;
+                    for (Object parameter : queryParameters) {
+                        dbStat.setObject(index++, parameter);
+                    }
+                    dbStat.setString(index, lastKey);
+                    try (ResultSet dbResult = dbStat.executeQuery()) {
+                        while (dbResult.next()) {
+                            keys.add(dbResult.getString(1));
+                        }
+                    }
+                }
+                if (keys.isEmpty()) {
+                    purgeState.setHighWaterMark(target, null);
+                    return true;
+                }
+                String paramList = "(" + SQLUtils.generateParamList(keys.size()) + ")";
+                int purgedRows = 0;
+                try (JDBCTransaction txn = new JDBCTransaction(dbCon)) {
+                    for (String deleteStatement : deleteStatements) {
+                        try (PreparedStatement dbStat = dbCon.prepareStatement(
+                            database.normalizeTableNames(deleteStatement + paramList))
+                        ) {
+                            setStringParameters(dbStat, 1, keys);
+                            purgedRows += dbStat.executeUpdate();
+                        }
+                    }
+                    txn.commit();
+                }
+                purgeState.addPurgedRows(target, purgedRows);
+            }
+            if (target == SMAuthDataPurgeState.Target.AUTH_TOKEN) {
+                SMTokenPermissionsCache permissionsCache = SMTokenPermissionsCache.getInstance();
+                for (String tokenId : keys) {
+                    permissionsCache.invalidateToken(tokenId);
+                }
+            }
+            lastKey = keys.get(keys.size() - 1);
+            if (keys.size() < AUTH_DATA_PURGE_CHUNK_SIZE) {
+                purgeState.setHighWaterMark(target, null);
+                return true;
+            }
+            purgeState.setHighWaterMark(target, lastKey);
+        }
+        return false;
+    }
+
     public Set<String> getFilteredSubjects(Set<String> allSubjects) {
         try (Connection dbCon = database.openConnection()) {
             Set<String> result = new HashSet<>();
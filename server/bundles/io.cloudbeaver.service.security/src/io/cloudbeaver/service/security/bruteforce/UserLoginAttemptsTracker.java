@@ -0,0 +1,151 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2024 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.security.bruteforce;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.model.auth.SMAuthStatus;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * In-memory sliding window of the latest login attempts per auth provider and user name.
+ * Serves brute force checks without reading auth attempts from the database on each login.
+ */
+public class UserLoginAttemptsTracker {
+
+    private static final UserLoginAttemptsTracker INSTANCE = new UserLoginAttemptsTracker();
+
+    // Expired attempts are removed after this number of new attempts
+    private static final int PRUNE_INTERVAL = 1000;
+
+    public interface AttemptsLoader {
+        void loadAttempts(@NotNull UserLoginAttemptsTracker tracker) throws SQLException;
+    }
+
+    private static class LoginAttempt {
+        private final String authId;
+        private final String userKey;
+        private final LocalDateTime time;
+        private SMAuthStatus status;
+
+        LoginAttempt(String authId, String userKey, LocalDateTime time, SMAuthStatus status) {
+            this.authId = authId;
+            this.userKey = userKey;
+            this.time = time;
+            this.status = status;
+        }
+    }
+
+    // Newest attempts first
+    private final Map<String, Deque<LoginAttempt>> attemptsByUser = new HashMap<>();
+    private final Map<String, LoginAttempt> attemptsById = new HashMap<>();
+    private boolean loaded;
+    private int attemptsSincePrune;
+
+    @NotNull
+    public static UserLoginAttemptsTracker getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Loads recent attempts from the database once
+     */
+    public synchronized void ensureLoaded(@NotNull AttemptsLoader loader) throws SQLException {
+        if (!loaded) {
+            loader.loadAttempts(this);
+            loaded = true;
+        }
+    }
+
+    /**
+     * Registers new attempt. Attempts must be added in creation order.
+     *
+     * @param maxAttempts number of latest attempts kept for the user
+     */
+    public synchronized void addAttempt(
+        @NotNull String authId,
+        @NotNull String authProviderId,
+        @NotNull String userName,
+        @NotNull SMAuthStatus status,
+        @NotNull LocalDateTime time,
+        int maxAttempts
+    ) {
+        String userKey = getUserKey(authProviderId, userName);
+        LoginAttempt attempt = new LoginAttempt(authId, userKey, time, status);
+        Deque<LoginAttempt> userAttempts = attemptsByUser.computeIfAbsent(userKey, key -> new ArrayDeque<>());
+        userAttempts.addFirst(attempt);
+        attemptsById.put(authId, attempt);
+        while (userAttempts.size() > Math.max(maxAttempts, 1)) {
+            attemptsById.remove(userAttempts.removeLast().authId);
+        }
+        attemptsSincePrune++;
+    }
+
+    public synchronized void updateStatus(@NotNull String authId, @NotNull SMAuthStatus status) {
+        LoginAttempt attempt = attemptsById.get(authId);
+        if (attempt != null) {
+            attempt.status = status;
+        }
+    }
+
+    /**
+     * Returns latest attempts created after the given time, newest first
+     */
+    @NotNull
+    public synchronized List<UserLoginRecord> getLatestAttempts(
+        @NotNull String authProviderId,
+        @NotNull String userName,
+        @NotNull LocalDateTime since
+    ) {
+        if (attemptsSincePrune >= PRUNE_INTERVAL) {
+            prune(since);
+        }
+        Deque<LoginAttempt> userAttempts = attemptsByUser.get(getUserKey(authProviderId, userName));
+        if (userAttempts == null) {
+            return List.of();
+        }
+        List<UserLoginRecord> records = new ArrayList<>();
+        for (LoginAttempt attempt : userAttempts) {
+            if (!attempt.time.isAfter(since)) {
+                break;
+            }
+            records.add(new UserLoginRecord(attempt.status, attempt.time));
+        }
+        return records;
+    }
+
+    private void prune(@NotNull LocalDateTime since) {
+        for (Iterator<Deque<LoginAttempt>> iter = attemptsByUser.values().iterator(); iter.hasNext(); ) {
+            Deque<LoginAttempt> userAttempts = iter.next();
+            while (!userAttempts.isEmpty() && !userAttempts.peekLast().time.isAfter(since)) {
+                attemptsById.remove(userAttempts.removeLast().authId);
+            }
+            if (userAttempts.isEmpty()) {
+                iter.remove();
+            }
+        }
+        attemptsSincePrune = 0;
+    }
+
+    @NotNull
+    private static String getUserKey(@NotNull String authProviderId, @NotNull String userName) {
+        // Provider ids do not contain colons
+        return authProviderId + ":" + userName;
+    }
+}
@@ -29,6 +29,7 @@ public class ClearAuthAttemptInfoJob extends AbstractJob {
 
     private static final long CHECK_PERIOD = 60 * 60 * 1000;
     private static final long RETRY_PERIOD = 5000;
+    private static final long CONTINUE_PERIOD = 60 * 1000;
 
     private static final Log log = Log.getLog(ClearAuthAttemptInfoJob.class);
 
@@ -42,8 +43,10 @@ public class ClearAuthAttemptInfoJob extends AbstractJob {
     @Override
     protected IStatus run(DBRProgressMonitor monitor) {
         try {
-            securityController.clearOldAuthAttemptInfo();
-            schedule(CHECK_PERIOD);
+            boolean complete = securityController.clearOldAuthAttemptInfo();
+            log.debug("Expired auth data purge: " + SMAuthDataPurgeState.getInstance());
+            // Chunks limit reached, continue from the high-water mark soon
+            schedule(complete ? CHECK_PERIOD : CONTINUE_PERIOD);
         } catch (DBException e) {
             log.error("Error to clear the auth attempt info: " + CommonUtils.getRootCause(e).getMessage());
             // Check failed. Re-schedule after 5 seconds
@@ -0,0 +1,103 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2024 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.security.internal;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Progress and metrics of expired auth data purge.
+ * High-water marks let the next run continue where the previous one stopped after the chunk limit.
+ */
+public class SMAuthDataPurgeState {
+
+    public enum Target {
+        AUTH_ATTEMPT_INFO,
+        AUTH_ATTEMPT,
+        AUTH_TOKEN
+    }
+
+    private static final SMAuthDataPurgeState INSTANCE = new SMAuthDataPurgeState();
+
+    private final Map<Target, String> highWaterMarks = new EnumMap<>(Target.class);
+    private final Map<Target, Long> lastRunPurgedRows = new EnumMap<>(Target.class);
+    private final Map<Target, Long> totalPurgedRows = new EnumMap<>(Target.class);
+    private long lastRunStartTime;
+    private long lastRunDuration;
+    private boolean lastRunComplete = true;
+
+    SMAuthDataPurgeState() {
+    }
+
+    @NotNull
+    public static SMAuthDataPurgeState getInstance() {
+        return INSTANCE;
+    }
+
+    @Nullable
+    public synchronized String getHighWaterMark(@NotNull Target target) {
+        return highWaterMarks.get(target);
+    }
+
+    public synchronized void setHighWaterMark(@NotNull Target target, @Nullable String key) {
+        if (key == null) {
+            highWaterMarks.remove(target);
+        } else {
+            highWaterMarks.put(target, key);
+        }
+    }
+
+    public synchronized void startRun() {
+        lastRunStartTime = System.currentTimeMillis();
+        lastRunPurgedRows.clear();
+    }
+
+    public synchronized void addPurgedRows(@NotNull Target target, long rows) {
+        lastRunPurgedRows.merge(target, rows, Long::sum);
+        totalPurgedRows.merge(target, rows, Long::sum);
+    }
+
+    public synchronized void finishRun(boolean complete) {
+        lastRunDuration = System.currentTimeMillis() - lastRunStartTime;
+        lastRunComplete = complete;
+    }
+
+    public synchronized long getLastRunPurgedRows(@NotNull Target target) {
+        return lastRunPurgedRows.getOrDefault(target, 0L);
+    }
+
+    public synchronized long getTotalPurgedRows(@NotNull Target target) {
+        return totalPurgedRows.getOrDefault(target, 0L);
+    }
+
+    public synchronized long getLastRunDuration() {
+        return lastRunDuration;
+    }
+
+    public synchronized boolean isLastRunComplete() {
+        return lastRunComplete;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "purged rows " + lastRunPurgedRows + " in " + lastRunDuration + "ms" +
+            (lastRunComplete ? "" : " (incomplete)") + ", total " + totalPurgedRows;
+    }
+}
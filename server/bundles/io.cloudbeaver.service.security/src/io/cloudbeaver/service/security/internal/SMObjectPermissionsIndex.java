@@ -0,0 +1,246 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2024 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.security.internal;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.dbeaver.Log;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * In-memory index of object permission grants: object type -> subject -> object -> permissions.
+ * Permissions of each grant are stored as a bit mask, object and subject ids are shared between entries.
+ * Index is loaded from the database and dropped by the security controller after each change,
+ * so it never diverges from the committed grants.
+ * Changes made on other cluster nodes are not tracked, so the index is used in single node mode only.
+ */
+public class SMObjectPermissionsIndex {
+
+    private static final Log log = Log.getLog(SMObjectPermissionsIndex.class);
+
+    private static final SMObjectPermissionsIndex INSTANCE = new SMObjectPermissionsIndex();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Only one thread reads grants from the database
+    private final Lock loadLock = new ReentrantLock();
+    // object type -> subject id -> object id -> permissions mask
+    private final Map<String, Map<String, Map<String, Long>>> grants = new HashMap<>();
+    private final Map<String, Integer> permissionBits = new HashMap<>();
+    private final List<String> permissionNames = new ArrayList<>();
+    private final Map<String, String> idPool = new HashMap<>();
+    private boolean loaded;
+    // Incremented on each invalidation, grants read before the change are not loaded
+    private long version;
+    // Set if permissions cannot be indexed, all checks go to the database then
+    private boolean disabled;
+
+    @NotNull
+    public static SMObjectPermissionsIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Loads index if it is not loaded yet.
+     * Grants are read without the index lock, permission checks running meanwhile read the database.
+     *
+     * @return false if index cannot be used and permissions must be read from the database
+     */
+    public boolean ensureLoaded(@NotNull Connection dbCon, @NotNull String selectAllSql) {
+        long readVersion;
+        lock.readLock().lock();
+        try {
+            if (disabled) {
+                return false;
+            }
+            if (loaded) {
+                return true;
+            }
+            readVersion = version;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!loadLock.tryLock()) {
+            // Index is being loaded by another thread
+            return false;
+        }
+        try {
+            List<String[]> rows = new ArrayList<>();
+            try (PreparedStatement dbStat = dbCon.prepareStatement(selectAllSql);
+                 ResultSet dbResult = dbStat.executeQuery()
+            ) {
+                while (dbResult.next()) {
+                    rows.add(new String[] {
+                        dbResult.getString(1), dbResult.getString(2), dbResult.getString(3), dbResult.getString(4)
+                    });
+                }
+            } catch (SQLException e) {
+                log.error("Error loading object permissions index", e);
+                return false;
+            }
+            lock.writeLock().lock();
+            try {
+                if (loaded) {
+                    return true;
+                }
+                if (disabled || version != readVersion) {
+                    // Grants were changed while they were read, next check loads them again
+                    return false;
+                }
+                for (String[] row : rows) {
+                    if (!addGrant(row[0], row[1], row[2], row[3])) {
+                        clear();
+                        return false;
+                    }
+                }
+                // Index is not changed after load, ids are already shared
+                idPool.clear();
+                loaded = true;
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * Returns permissions of all objects of the given type granted to any of the subjects.
+     */
+    @NotNull
+    public Map<String, Set<String>> getAllObjectsPermissions(@NotNull String objectType, @NotNull Collection<String> subjectIds) {
+        lock.readLock().lock();
+        try {
+            Map<String, Long> result = new LinkedHashMap<>();
+            Map<String, Map<String, Long>> typeGrants = grants.get(objectType);
+            if (typeGrants != null) {
+                for (String subjectId : subjectIds) {
+                    Map<String, Long> subjectGrants = typeGrants.get(subjectId);
+                    if (subjectGrants != null) {
+                        subjectGrants.forEach((objectId, mask) -> result.merge(objectId, mask, (m1, m2) -> m1 | m2));
+                    }
+                }
+            }
+            Map<String, Set<String>> permissions = new LinkedHashMap<>();
+            result.forEach((objectId, mask) -> permissions.put(objectId, toPermissions(mask)));
+            return permissions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns permissions of the object granted to any of the subjects.
+     */
+    @NotNull
+    public Set<String> getObjectPermissions(
+        @NotNull String objectType,
+        @NotNull String objectId,
+        @NotNull Collection<String> subjectIds
+    ) {
+        lock.readLock().lock();
+        try {
+            long mask = 0;
+            Map<String, Map<String, Long>> typeGrants = grants.get(objectType);
+            if (typeGrants != null) {
+                for (String subjectId : subjectIds) {
+                    Map<String, Long> subjectGrants = typeGrants.get(subjectId);
+                    Long objectMask = subjectGrants == null ? null : subjectGrants.get(objectId);
+                    if (objectMask != null) {
+                        mask |= objectMask;
+                    }
+                }
+            }
+            return toPermissions(mask);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the index after object permissions were changed in the database.
+     * Index is loaded again on the next check, loads started before the change are discarded.
+     */
+    public void invalidate() {
+        lock.writeLock().lock();
+        try {
+            version++;
+            clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean addGrant(
+        @NotNull String objectType,
+        @NotNull String objectId,
+        @NotNull String subjectId,
+        @NotNull String permission
+    ) {
+        Integer bit = permissionBits.get(permission);
+        if (bit == null) {
+            if (permissionNames.size() >= Long.SIZE) {
+                // Too many distinct permissions for a bit mask
+                log.warn("Too many object permissions, permissions index is disabled");
+                disabled = true;
+                return false;
+            }
+            bit = permissionNames.size();
+            permissionNames.add(permission);
+            permissionBits.put(permission, bit);
+        }
+        long mask = 1L << bit;
+        grants.computeIfAbsent(pooledId(objectType), type -> new HashMap<>())
+            .computeIfAbsent(pooledId(subjectId), subject -> new HashMap<>())
+            .merge(pooledId(objectId), mask, (m1, m2) -> m1 | m2);
+        return true;
+    }
+
+    @NotNull
+    private String pooledId(@NotNull String id) {
+        return idPool.computeIfAbsent(id, Function.identity());
+    }
+
+    @NotNull
+    private Set<String> toPermissions(long mask) {
+        Set<String> permissions = new HashSet<>();
+        for (int bit = 0; mask != 0 && bit < permissionNames.size(); bit++) {
+            if ((mask & (1L << bit)) != 0) {
+                permissions.add(permissionNames.get(bit));
+                mask &= ~(1L << bit);
+            }
+        }
+        return permissions;
+    }
+
+    private void clear() {
+        grants.clear();
+        permissionBits.clear();
+        permissionNames.clear();
+        idPool.clear();
+        loaded = false;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2024 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.service.security.internal;
+
+import org.jkiss.code.NotNull;
+import org.jkiss.code.Nullable;
+import org.jkiss.dbeaver.model.auth.SMAuthPermissions;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Bounded cache of resolved access token permissions.
+ * Entries are invalidated by permission, team and token changes.
+ * Used in single node mode only: token changes made on other cluster nodes are not broadcast.
+ */
+public class SMTokenPermissionsCache {
+
+    private static final int MAX_ENTRIES = 10_000;
+    private static final long DEFAULT_TTL = TimeUnit.SECONDS.toMillis(30);
+
+    private static final SMTokenPermissionsCache INSTANCE = new SMTokenPermissionsCache(MAX_ENTRIES, DEFAULT_TTL);
+
+    private record Entry(@NotNull SMAuthPermissions permissions, long expireTime) {
+    }
+
+    // Access ordered, least recently used tokens are dropped first
+    private final LinkedHashMap<String, Entry> entries;
+    private final long ttl;
+    // Incremented on each invalidation, permissions read before invalidation are not cached
+    private long generation;
+    private long hits;
+    private long misses;
+
+    SMTokenPermissionsCache(int maxEntries, long ttl) {
+        this.ttl = ttl;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @NotNull
+    public static SMTokenPermissionsCache getInstance() {
+        return INSTANCE;
+    }
+
+    @Nullable
+    public synchronized SMAuthPermissions getPermissions(@NotNull String token) {
+        Entry entry = entries.get(token);
+        if (entry != null && entry.expireTime() < System.currentTimeMillis()) {
+            entries.remove(token);
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.permissions();
+    }
+
+    public synchronized long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Caches token permissions unless cache was invalidated after they were read.
+     */
+    public synchronized void putPermissions(@NotNull String token, @NotNull SMAuthPermissions permissions, long readGeneration) {
+        if (readGeneration != generation) {
+            return;
+        }
+        entries.put(token, new Entry(permissions, System.currentTimeMillis() + ttl));
+    }
+
+    public synchronized void invalidateToken(@NotNull String token) {
+        generation++;
+        entries.remove(token);
+    }
+
+    public void invalidateUser(@NotNull String userId) {
+        invalidate(entry -> userId.equals(entry.permissions().getUserId()));
+    }
+
+    public void invalidateSession(@NotNull String smSessionId) {
+        invalidate(entry -> smSessionId.equals(entry.permissions().getSessionId()));
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    private synchronized void invalidate(@NotNull Predicate<Entry> filter) {
+        generation++;
+        for (Iterator<Entry> iter = entries.values().iterator(); iter.hasNext(); ) {
+            if (filter.test(iter.next())) {
+                iter.remove();
+            }
+        }
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public synchronized double getHitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+}
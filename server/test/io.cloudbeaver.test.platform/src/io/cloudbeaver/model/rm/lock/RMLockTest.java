@@ -77,7 +77,7 @@ public class RMLockTest {
                 }
                 return invocationOnMock.callRealMethod();
             }
-        }).when(lockController2).awaitingUnlock(Mockito.any(), Mockito.any());
+        }).when(lockController2).awaitingUnlock(Mockito.any(), Mockito.any(), Mockito.anyLong());
         Runnable runnable2 = () -> {
             try {
                 thread2CDL.await(1, TimeUnit.MINUTES);
@@ -85,7 +85,7 @@ public class RMLockTest {
                 Assert.assertTrue("Project not locked", lockController2.isProjectLocked(project1));
                 try (var lock = lockController2.lockProject(project1, "testThatProjectLocked2")) {
                     //that we were really waiting for the file and the lock was not removed earlier
-                    Mockito.verify(lockController2, Mockito.atLeast(atLeastWaitCalls)).awaitingUnlock(Mockito.any(), Mockito.any());
+                    Mockito.verify(lockController2, Mockito.atLeast(atLeastWaitCalls)).awaitingUnlock(Mockito.any(), Mockito.any(), Mockito.anyLong());
                 }
             } catch (Throwable e) {
                 log.error(e);
@@ -208,4 +208,53 @@ public class RMLockTest {
         }
         Assert.assertFalse(lockController2.isProjectLocked(project1));
     }
+
+    @Test
+    public void testContendedProjectDoesNotBlockOtherProjects() throws Throwable {
+        var lockController = new TestLockController(CEAppStarter.getTestApp(), 60 * 1000);
+        int projectCount = 8;
+        ExecutorService projectExecutor = Executors.newFixedThreadPool(projectCount + 1);
+        try {
+            CountDownLatch waiterStarted = new CountDownLatch(1);
+            AtomicReference<Throwable> exceptionReference = new AtomicReference<>();
+            try (var lock = lockController.lockProject(project1, "testContendedProject1")) {
+                // Waits for project1 while other projects are locked
+                var waiter = projectExecutor.submit(() -> {
+                    waiterStarted.countDown();
+                    try (var waiterLock = lockController.lockProject(project1, "testContendedProject2")) {
+                        Assert.assertNotNull(waiterLock);
+                    } catch (Throwable e) {
+                        exceptionReference.set(e);
+                    }
+                });
+                waiterStarted.await(1, TimeUnit.MINUTES);
+
+                CountDownLatch allLocked = new CountDownLatch(projectCount);
+                CountDownLatch releaseLocks = new CountDownLatch(1);
+                for (int i = 0; i < projectCount; i++) {
+                    String projectId = "s_fakeParallelProject" + i;
+                    projectExecutor.submit(() -> {
+                        try (var projectLock = lockController.lockProject(projectId, "testParallelProjects")) {
+                            allLocked.countDown();
+                            releaseLocks.await(1, TimeUnit.MINUTES);
+                        } catch (Throwable e) {
+                            exceptionReference.set(e);
+                        }
+                    });
+                }
+                // All projects are held at the same time, while project1 is still contended
+                Assert.assertTrue("Projects were not locked in parallel", allLocked.await(10, TimeUnit.SECONDS));
+                Assert.assertFalse("Waiter acquired locked project", waiter.isDone());
+                releaseLocks.countDown();
+                lock.unlock();
+                waiter.get(1, TimeUnit.MINUTES);
+            }
+            if (exceptionReference.get() != null) {
+                throw exceptionReference.get();
+            }
+            Assert.assertFalse(lockController.isProjectLocked(project1));
+        } finally {
+            projectExecutor.shutdownNow();
+        }
+    }
 }
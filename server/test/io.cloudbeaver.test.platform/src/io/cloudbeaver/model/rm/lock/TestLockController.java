@@ -32,8 +32,8 @@ public class TestLockController extends RMFileLockController {
 
     //avoid mockito access method error
     @Override
-    public void awaitingUnlock(String projectId, Path projectLockFile) throws InterruptedException, DBException {
-        super.awaitingUnlock(projectId, projectLockFile);
+    public void awaitingUnlock(String projectId, Path projectLockFile, long deadline) throws InterruptedException, DBException {
+        super.awaitingUnlock(projectId, projectLockFile, deadline);
     }
 
     //avoid mockito access method error
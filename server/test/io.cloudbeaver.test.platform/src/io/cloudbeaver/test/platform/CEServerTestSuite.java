@@ -33,7 +33,8 @@ import org.junit.runners.Suite;
         AuthenticationTest.class,
         ResourceManagerTest.class,
         RMLockTest.class,
-        RMNIOTest.class
+        RMNIOTest.class,
+        ChunkedUploadTest.class
     }
 )
 public class CEServerTestSuite {
@@ -0,0 +1,159 @@
+/*
+ * DBeaver - Universal Database Manager
+ * Copyright (C) 2010-2024 DBeaver Corp and others
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.cloudbeaver.test.platform;
+
+import io.cloudbeaver.DBWebException;
+import io.cloudbeaver.service.WebChunkedUploadManager;
+import org.jkiss.code.NotNull;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ChunkedUploadTest {
+    private static final int FILE_SIZE = 1024 * 1024 + 123;
+    private static final int CHUNK_SIZE = 64 * 1024 + 1;
+
+    private final WebChunkedUploadManager uploadManager = WebChunkedUploadManager.getInstance();
+    private final String sessionId = "s_chunkedUploadTest_" + UUID.randomUUID();
+    private final byte[] data = new byte[FILE_SIZE];
+    private Path uploadFolder;
+
+    @Before
+    public void init() throws Exception {
+        new Random(42).nextBytes(data);
+        uploadFolder = Files.createTempDirectory("chunked-upload-test");
+    }
+
+    @After
+    public void cleanup() throws Exception {
+        uploadManager.removeSessionUploads(sessionId);
+        Files.deleteIfExists(uploadFolder);
+    }
+
+    @Test
+    public void testOutOfOrderChunks() throws Exception {
+        String uploadId = uploadManager.startUpload(sessionId, uploadFolder, FILE_SIZE);
+        List<Integer> offsets = getChunkOffsets();
+        Collections.reverse(offsets);
+        int lastOffset = offsets.get(0);
+        writeChunk(uploadId, lastOffset);
+        // Chunk past the end of received data must be written and recorded
+        Assert.assertEquals(
+            List.of(List.of((long) lastOffset, (long) FILE_SIZE)),
+            uploadManager.getReceivedRanges(sessionId, uploadId));
+        for (int offset : offsets.subList(1, offsets.size())) {
+            writeChunk(uploadId, offset);
+        }
+        assertCommitted(uploadId);
+    }
+
+    @Test
+    public void testParallelChunks() throws Exception {
+        String uploadId = uploadManager.startUpload(sessionId, uploadFolder, FILE_SIZE);
+        List<Integer> offsets = getChunkOffsets();
+        Collections.shuffle(offsets, new Random(42));
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int offset : offsets) {
+                results.add(executor.submit(() -> {
+                    writeChunk(uploadId, offset);
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertCommitted(uploadId);
+    }
+
+    @Test
+    public void testShortChunk() throws Exception {
+        String uploadId = uploadManager.startUpload(sessionId, uploadFolder, FILE_SIZE);
+        int received = CHUNK_SIZE / 2;
+        Assert.assertThrows(DBWebException.class, () -> uploadManager.writeChunk(
+            sessionId,
+            uploadId,
+            0,
+            CHUNK_SIZE,
+            Channels.newChannel(new ByteArrayInputStream(data, 0, received))));
+        // Received part is kept for resume
+        Assert.assertEquals(List.of(List.of(0L, (long) received)), uploadManager.getReceivedRanges(sessionId, uploadId));
+        Assert.assertThrows(DBWebException.class, () -> uploadManager.commitUpload(sessionId, uploadId, sha256(data)));
+    }
+
+    @Test
+    public void testChecksumMismatch() throws Exception {
+        String uploadId = uploadManager.startUpload(sessionId, uploadFolder, FILE_SIZE);
+        for (int offset : getChunkOffsets()) {
+            writeChunk(uploadId, offset);
+        }
+        byte[] corrupted = data.clone();
+        corrupted[FILE_SIZE / 2] ^= 1;
+        Assert.assertThrows(DBWebException.class, () -> uploadManager.commitUpload(sessionId, uploadId, sha256(corrupted)));
+        // Corrupted upload is discarded
+        Assert.assertThrows(DBWebException.class, () -> uploadManager.getReceivedRanges(sessionId, uploadId));
+    }
+
+    private void assertCommitted(@NotNull String uploadId) throws Exception {
+        Assert.assertEquals(List.of(List.of(0L, (long) FILE_SIZE)), uploadManager.getReceivedRanges(sessionId, uploadId));
+        Path file = uploadManager.commitUpload(sessionId, uploadId, sha256(data));
+        try {
+            Assert.assertArrayEquals(data, Files.readAllBytes(file));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private void writeChunk(@NotNull String uploadId, int offset) throws DBWebException {
+        int length = Math.min(CHUNK_SIZE, FILE_SIZE - offset);
+        uploadManager.writeChunk(
+            sessionId,
+            uploadId,
+            offset,
+            length,
+            Channels.newChannel(new ByteArrayInputStream(data, offset, length)));
+    }
+
+    @NotNull
+    private static List<Integer> getChunkOffsets() {
+        List<Integer> offsets = new ArrayList<>();
+        for (int offset = 0; offset < FILE_SIZE; offset += CHUNK_SIZE) {
+            offsets.add(offset);
+        }
+        return offsets;
+    }
+
+    @NotNull
+    private static String sha256(@NotNull byte[] bytes) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    }
+}